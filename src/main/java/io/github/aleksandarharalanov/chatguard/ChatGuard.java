@@ -1,47 +1,129 @@
 package io.github.aleksandarharalanov.chatguard;
 
 import io.github.aleksandarharalanov.chatguard.command.ChatGuardCommand;
+import io.github.aleksandarharalanov.chatguard.handler.ReloadHandler;
+import io.github.aleksandarharalanov.chatguard.handler.StrikeHandler;
 import io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener;
+import io.github.aleksandarharalanov.chatguard.listener.PlayerCommandListener;
+import io.github.aleksandarharalanov.chatguard.listener.PlayerConnectionListener;
+import io.github.aleksandarharalanov.chatguard.listener.SignChangeListener;
 import io.github.aleksandarharalanov.chatguard.util.ConfigUtil;
+import io.github.aleksandarharalanov.chatguard.util.FileWatcher;
+import io.github.aleksandarharalanov.chatguard.violation.LogViolationSink;
+import io.github.aleksandarharalanov.chatguard.violation.StrikeTracker;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationReporter;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationStore;
 import org.bukkit.event.Event.Priority;
 import org.bukkit.event.Event.Type;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.persistFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.saveFilterCache;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.resetSettings;
 import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logInfo;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
 import static io.github.aleksandarharalanov.chatguard.util.UpdateUtil.checkForUpdates;
 
 public class ChatGuard extends JavaPlugin {
 
+    private static final long UPDATE_CACHE_TTL = TimeUnit.HOURS.toMillis(6);
+    private static final long WATCH_DEBOUNCE = 1000L;
+
     private static ChatGuard plugin;
     private static ConfigUtil config;
     private static PluginDescriptionFile pdf;
+    private static ViolationReporter reporter;
+    private static ViolationStore history;
+    private static StrikeTracker strikes;
+    private static FileWatcher watcher;
 
     @Override
     public void onEnable() {
         pdf = getDescription();
 
-        checkForUpdates(pdf.getName(), pdf.getVersion(),
-                "https://api.github.com/repos/AleksandarHaralanov/ChatGuard/releases/latest"
-        );
-
         plugin = this;
 
         config = new ConfigUtil(this, "config.yml");
         config.loadConfig();
+        resetSettings();
+
+        reporter = new ViolationReporter(getSettings().getReportQueueSize());
+        reporter.addSink(new LogViolationSink());
+        if (getSettings().isHistory()) {
+            try {
+                history = new ViolationStore(getDataFolder());
+                reporter.addSink(history);
+            } catch (IOException e) {
+                logSevere(String.format("[%s] Failed to open violation history: %s", pdf.getName(), e.getMessage()));
+            }
+        }
+        if (getSettings().isStrikes()) {
+            try {
+                strikes = new StrikeTracker(getDataFolder(), () -> getSettings().getStrikePolicy(), StrikeHandler::escalate);
+                reporter.addSink(strikes);
+            } catch (IOException e) {
+                logSevere(String.format("[%s] Failed to load strikes: %s", pdf.getName(), e.getMessage()));
+            }
+        }
 
         getCommand("chatguard").setExecutor(new ChatGuardCommand());
 
         PluginManager pluginManager = getServer().getPluginManager();
         final PlayerChatListener playerChatListener = new PlayerChatListener();
         pluginManager.registerEvent(Type.PLAYER_CHAT, playerChatListener, Priority.Normal, this);
+        final PlayerConnectionListener playerConnectionListener = new PlayerConnectionListener();
+        pluginManager.registerEvent(Type.PLAYER_LOGIN, playerConnectionListener, Priority.Normal, this);
+        pluginManager.registerEvent(Type.PLAYER_JOIN, playerConnectionListener, Priority.Normal, this);
+        pluginManager.registerEvent(Type.PLAYER_QUIT, playerConnectionListener, Priority.Normal, this);
+        final PlayerCommandListener playerCommandListener = new PlayerCommandListener();
+        pluginManager.registerEvent(Type.PLAYER_COMMAND_PREPROCESS, playerCommandListener, Priority.Normal, this);
+        final SignChangeListener signChangeListener = new SignChangeListener();
+        pluginManager.registerEvent(Type.SIGN_CHANGE, signChangeListener, Priority.Normal, this);
+
+        if (getSettings().isWatch()) {
+            try {
+                watcher = new FileWatcher(getDataFolder(), Collections.singletonList(config.getConfig().getName()),
+                        WATCH_DEBOUNCE, ReloadHandler::onConfigChanged);
+                watcher.start();
+            } catch (IOException e) {
+                logSevere(String.format("[%s] Failed to watch the config for changes: %s", pdf.getName(), e.getMessage()));
+            }
+        }
+
+        final File updateCache = new File(getDataFolder(), "update-cache.properties");
+        getServer().getScheduler().scheduleAsyncDelayedTask(this, () -> checkForUpdates(pdf.getName(), pdf.getVersion(),
+                "https://api.github.com/repos/AleksandarHaralanov/ChatGuard/releases/latest",
+                updateCache, UPDATE_CACHE_TTL
+        ));
 
         logInfo(String.format("[%s] v%s Enabled.", pdf.getName(), pdf.getVersion()));
     }
 
     @Override
     public void onDisable() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        reporter.shutdown();
+        if (history != null) {
+            history.close();
+            history = null;
+        }
+        if (strikes != null) {
+            strikes.close();
+            strikes = null;
+        }
+        persistFilter();
+        saveFilterCache();
         config.saveConfig();
 
         logInfo(String.format("[%s] v%s Disabled.", pdf.getName(), pdf.getVersion()));
@@ -54,4 +136,16 @@ public class ChatGuard extends JavaPlugin {
     public static ConfigUtil getConfig() {
         return config;
     }
+
+    public static ViolationReporter getReporter() {
+        return reporter;
+    }
+
+    public static ViolationStore getHistory() {
+        return history;
+    }
+
+    public static StrikeTracker getStrikes() {
+        return strikes;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+package io.github.aleksandarharalanov.chatguard.audit;
+
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterMatches;
+import io.github.aleksandarharalanov.chatguard.filter.MatchMode;
+import io.github.aleksandarharalanov.chatguard.filter.StandardNormalizer;
+import io.github.aleksandarharalanov.chatguard.util.WordlistUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Standalone tool that runs a wordlist over existing server logs to show what it would have caught.
+ * <p>
+ * Runs without a server, straight from the plugin jar:
+ * <pre>
+ * java -jar ChatGuard.jar &lt;wordlist&gt; &lt;log&gt;... [--allow &lt;file&gt;] [--mode substring|word|prefix]
+ *                                           [--threads &lt;n&gt;] [--out &lt;file&gt;]
+ * </pre>
+ * The wordlist and allowlist are read like {@code /cg filter import} reads them, and compiled into the same
+ * {@link FilterEngine} the plugin uses. Each log is memory-mapped and cut into chunks of about
+ * {@value #CHUNK_SIZE} bytes, each ending on a line break, and the chunks are scanned in parallel on a
+ * {@link ForkJoinPool}. Only chat lines, {@code ... <player> message}, are checked.
+ * <p>
+ * The report lists how often each entry matched and how many messages of each player were caught, followed by the
+ * overall throughput in MB/s.
+ */
+public final class ChatLogAudit {
+
+    /**
+     * Target size of one chunk of a log, in bytes.
+     */
+    public static final int CHUNK_SIZE = 8 << 20;
+
+    private ChatLogAudit() {
+    }
+
+    /**
+     * Runs the audit.
+     *
+     * @param args the command-line arguments described in the class documentation
+     *
+     * @throws IOException if a wordlist or log cannot be read or the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> paths = new ArrayList<>();
+        File allowFile = null;
+        File outFile = null;
+        MatchMode mode = MatchMode.SUBSTRING;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--") && i + 1 == args.length) {
+                usage(String.format("%s needs a value", arg));
+                return;
+            }
+            switch (arg) {
+                case "--allow":
+                    allowFile = new File(args[++i]);
+                    break;
+                case "--mode":
+                    mode = MatchMode.parse(args[++i], null);
+                    if (mode == null) {
+                        usage(String.format("unknown mode '%s'", args[i]));
+                        return;
+                    }
+                    break;
+                case "--threads":
+                    try {
+                        threads = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        threads = 0;
+                    }
+                    if (threads < 1) {
+                        usage(String.format("'%s' isn't a valid thread count", args[i]));
+                        return;
+                    }
+                    break;
+                case "--out":
+                    outFile = new File(args[++i]);
+                    break;
+                default:
+                    paths.add(arg);
+                    break;
+            }
+        }
+        if (paths.size() < 2) {
+            usage("a wordlist and at least one log are required");
+            return;
+        }
+
+        List<String> filter = new ArrayList<>();
+        WordlistUtil.read(new File(paths.get(0)), filter::add, lines -> { });
+        List<String> allowlist = new ArrayList<>();
+        if (allowFile != null) {
+            WordlistUtil.read(allowFile, allowlist::add, lines -> { });
+        }
+        FilterEngine engine = FilterEngine.compile(filter, allowlist, mode, StandardNormalizer.INSTANCE);
+        for (String rejected : engine.getRejected()) {
+            System.err.printf("Skipping invalid filter entry: %s%n", rejected);
+        }
+
+        long start = System.nanoTime();
+        Result total = new Result();
+        long bytes = 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (String path : paths.subList(1, paths.size())) {
+                File log = new File(path);
+                try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+                    List<long[]> chunks = split(channel);
+                    total.merge(pool.invoke(new ChunkTask(engine, channel, chunks, 0, chunks.size())));
+                    bytes += channel.size();
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try (PrintStream out = outFile != null ? new PrintStream(outFile, "UTF-8") : null) {
+            report(out != null ? out : System.out, engine, total, bytes, seconds);
+        }
+        if (outFile != null) {
+            System.out.printf("Report written to %s (%.1f MB/s).%n", outFile, bytes / 1e6 / seconds);
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.printf("%s.%nUsage: java -jar ChatGuard.jar <wordlist> <log>... [--allow <file>] "
+                + "[--mode substring|word|prefix] [--threads <n>] [--out <file>]%n", problem);
+    }
+
+    /**
+     * Cuts a file into {@code [start, end)} ranges of about {@link #CHUNK_SIZE} bytes, each ending just after a
+     * line break or at the end of the file.
+     */
+    private static List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + CHUNK_SIZE);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                int newline = -1;
+                for (int i = 0; i < read && newline == -1; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                    }
+                }
+                if (newline != -1) {
+                    end += newline + 1;
+                    break;
+                }
+                end = read <= 0 ? size : end + read;
+            }
+            chunks.add(new long[]{start, Math.min(end, size)});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static void report(PrintStream out, FilterEngine engine, Result result, long bytes, double seconds) {
+        out.printf("ChatGuard log audit: %d entries, %d lines, %d chat messages, %d caught%n",
+                engine.size(), result.lines, result.messages, result.caught);
+        out.printf("Scanned %.1f MB in %.2f s (%.1f MB/s)%n", bytes / 1e6, seconds, bytes / 1e6 / seconds);
+
+        out.printf("%nMatches per entry:%n");
+        for (Map.Entry<String, long[]> entry : sorted(result.words)) {
+            out.printf("%10d  %s%n", entry.getValue()[0], entry.getKey());
+        }
+
+        out.printf("%nCaught messages per player:%n");
+        for (Map.Entry<String, long[]> entry : sorted(result.players)) {
+            out.printf("%10d  %s%n", entry.getValue()[0], entry.getKey());
+        }
+    }
+
+    private static List<Map.Entry<String, long[]>> sorted(Map<String, long[]> counts) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> {
+            int order = Long.compare(b.getValue()[0], a.getValue()[0]);
+            return order != 0 ? order : a.getKey().compareTo(b.getKey());
+        });
+        return entries;
+    }
+
+    /**
+     * Counts gathered from one or more chunks.
+     */
+    private static final class Result {
+
+        private final Map<String, long[]> words = new HashMap<>();
+        private final Map<String, long[]> players = new HashMap<>();
+        private long lines;
+        private long messages;
+        private long caught;
+
+        private static void count(Map<String, long[]> counts, String key, long amount) {
+            long[] count = counts.get(key);
+            if (count == null) {
+                counts.put(key, new long[]{amount});
+            } else {
+                count[0] += amount;
+            }
+        }
+
+        private Result merge(Result other) {
+            for (Map.Entry<String, long[]> entry : other.words.entrySet()) {
+                count(words, entry.getKey(), entry.getValue()[0]);
+            }
+            for (Map.Entry<String, long[]> entry : other.players.entrySet()) {
+                count(players, entry.getKey(), entry.getValue()[0]);
+            }
+            lines += other.lines;
+            messages += other.messages;
+            caught += other.caught;
+            return this;
+        }
+    }
+
+    /**
+     * Scans a range of chunks, splitting it in half until a single chunk is left.
+     */
+    private static final class ChunkTask extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FilterEngine engine;
+        private final FileChannel channel;
+        private final List<long[]> chunks;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(FilterEngine engine, FileChannel channel, List<long[]> chunks, int from, int to) {
+            this.engine = engine;
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(engine, channel, chunks, from, middle);
+                left.fork();
+                Result right = new ChunkTask(engine, channel, chunks, middle, to).compute();
+                return right.merge(left.join());
+            }
+
+            Result result = new Result();
+            if (from == to) {
+                return result;
+            }
+
+            long[] chunk = chunks.get(from);
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]);
+            } catch (IOException e) {
+                throw new IllegalStateException(String.format("Failed to map log chunk at %d: %s", chunk[0],
+                        e.getMessage()), e);
+            }
+            scan(buffer, result);
+            return result;
+        }
+
+        private void scan(ByteBuffer buffer, Result result) {
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer line = CharBuffer.allocate(1024);
+            FilterMatches matches = new FilterMatches();
+
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = start;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+
+                ByteBuffer bytes = buffer.duplicate();
+                bytes.limit(end).position(start);
+                if (line.capacity() < end - start) {
+                    line = CharBuffer.allocate(Math.max(end - start, line.capacity() << 1));
+                }
+                line.clear();
+                decoder.reset();
+                decoder.decode(bytes, line, true);
+                line.flip();
+                result.lines++;
+                scanLine(line, matches, result);
+
+                start = end + 1;
+            }
+        }
+
+        private void scanLine(CharBuffer line, FilterMatches matches, Result result) {
+            int open = indexOf(line, "] <", 0);
+            if (open == -1) {
+                return;
+            }
+            int close = indexOf(line, "> ", open + 3);
+            if (close == -1) {
+                return;
+            }
+
+            result.messages++;
+            CharSequence message = line.subSequence(close + 2, line.length());
+            if (!engine.scan(message, matches)) {
+                return;
+            }
+
+            result.caught++;
+            Result.count(result.players, line.subSequence(open + 3, close).toString(), 1);
+            for (int i = 0; i < matches.size(); i++) {
+                Result.count(result.words, engine.getEntry(matches.getEntry(i)), 1);
+            }
+        }
+
+        private static int indexOf(CharSequence text, String needle, int from) {
+            int last = text.length() - needle.length();
+            for (int i = from; i <= last; i++) {
+                int j = 0;
+                while (j < needle.length() && text.charAt(i + j) == needle.charAt(j)) {
+                    j++;
+                }
+                if (j == needle.length()) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -1,22 +1,63 @@
 package io.github.aleksandarharalanov.chatguard.command;
 
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterPattern;
+import io.github.aleksandarharalanov.chatguard.stats.LatencyHistogram;
+import io.github.aleksandarharalanov.chatguard.util.WordlistUtil;
+import io.github.aleksandarharalanov.chatguard.violation.StrikeTracker;
+import io.github.aleksandarharalanov.chatguard.violation.Violation;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationStore;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static io.github.aleksandarharalanov.chatguard.ChatGuard.*;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.getHits;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.getMisses;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.getSize;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.addEntries;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.addEntry;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getEntries;
 import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getFilter;
-import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.resetFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.removeEntry;
+import static io.github.aleksandarharalanov.chatguard.handler.ReloadHandler.reloadConfig;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.resetSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getBlocked;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getBypassed;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getCensored;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getDuplicates;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getFlooded;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getLatency;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getMuted;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getScanned;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getSince;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.getTopHits;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.resetStats;
 import static io.github.aleksandarharalanov.chatguard.util.AboutUtil.about;
 import static io.github.aleksandarharalanov.chatguard.util.AccessUtil.hasPermission;
 import static io.github.aleksandarharalanov.chatguard.util.ColorUtil.translate;
 import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logInfo;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
 
 public class ChatGuardCommand implements CommandExecutor {
 
+    private static final AtomicBoolean transferring = new AtomicBoolean();
+
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
         if (command.getName().equalsIgnoreCase("chatguard") ||
@@ -33,6 +74,12 @@ public class ChatGuardCommand implements CommandExecutor {
                         case "filter":
                             helpFilterCommand(sender);
                             break;
+                        case "cache":
+                            cacheCommand(sender);
+                            break;
+                        case "stats":
+                            statsCommand(sender, false);
+                            break;
                         default:
                             helpCommand(sender);
                             break;
@@ -51,6 +98,12 @@ public class ChatGuardCommand implements CommandExecutor {
                                 helpFilterCommand(sender);
                                 break;
                         }
+                    } else if (args[0].equalsIgnoreCase("history")) {
+                        historyCommand(sender, args[1], "10");
+                    } else if (args[0].equalsIgnoreCase("strikes")) {
+                        strikesCommand(sender, args[1], false);
+                    } else if (args[0].equalsIgnoreCase("stats") && args[1].equalsIgnoreCase("reset")) {
+                        statsCommand(sender, true);
                     } else {
                         helpCommand(sender);
                     }
@@ -63,10 +116,20 @@ public class ChatGuardCommand implements CommandExecutor {
                                 String message = args[2].toLowerCase();
                                 filterCommand(sender, message, args[1].equalsIgnoreCase("add"));
                                 break;
+                            case "import":
+                                importCommand(sender, args[2]);
+                                break;
+                            case "export":
+                                exportCommand(sender, args[2]);
+                                break;
                             default:
                                 helpFilterCommand(sender);
                                 break;
                         }
+                    } else if (args[0].equalsIgnoreCase("history")) {
+                        historyCommand(sender, args[1], args[2]);
+                    } else if (args[0].equalsIgnoreCase("strikes") && args[2].equalsIgnoreCase("clear")) {
+                        strikesCommand(sender, args[1], true);
                     } else {
                         helpCommand(sender);
                     }
@@ -98,6 +161,10 @@ public class ChatGuardCommand implements CommandExecutor {
                 "&bChatGuard commands:",
                 "&e/cg &7- Displays this message.",
                 "&e/cg about &7- See ChatGuard information.",
+                "&e/cg cache &7- See bypass cache statistics. (Staff)",
+                "&e/cg history <player> [count] &7- See a player's violations. (Staff)",
+                "&e/cg strikes <player> [clear] &7- See or clear a player's strikes. (Staff)",
+                "&e/cg stats [reset] &7- See or reset filter statistics. (Staff)",
                 "&e/cg filter &7- Manage ChatGuard filter. (Staff)"
         };
 
@@ -117,7 +184,8 @@ public class ChatGuardCommand implements CommandExecutor {
                 "&bArguments:",
                 "&e<reload> &7- Reload ChatGuard config.",
                 "&e<toggle> &7- Toggle the ChatGuard filter.",
-                "&e<add | remove> <message> &7- Modify filter messages."
+                "&e<add | remove> <message> &7- Modify filter messages.",
+                "&e<import | export> <file> &7- Load or save a .txt or .csv wordlist."
         };
 
         for (String message : messages) {
@@ -134,12 +202,187 @@ public class ChatGuardCommand implements CommandExecutor {
             return;
         }
 
-        getConfig().loadConfig();
-        resetFilter();
+        getInstance().getServer().getScheduler().scheduleAsyncDelayedTask(getInstance(), () -> {
+            if (reloadConfig()) {
+                if (sender instanceof Player) {
+                    sendLater(sender, "&aChatGuard config reloaded.");
+                }
+            } else {
+                sendLater(sender, "&cChatGuard config is broken, kept the current one. See the console.");
+            }
+        });
+    }
+
+    private static void cacheCommand(CommandSender sender) {
+        if (!hasPermission(sender, "chatguard.config", "You don't have permission to view ChatGuard statistics.")) {
+            return;
+        }
+
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        double rate = lookups == 0 ? 0 : hits * 100.0 / lookups;
+        String[] messages = {
+                "&bChatGuard bypass cache:",
+                String.format("&7Cached players: &e%d", getSize()),
+                String.format("&7Lookups: &e%d &7(hits: &e%d&7, misses: &e%d&7)", lookups, hits, lookups - hits),
+                String.format("&7Hit rate: &e%.1f%%", rate)
+        };
+
+        for (String message : messages) {
+            if (sender instanceof Player) {
+                sender.sendMessage(translate(message));
+            } else {
+                logInfo(message.replaceAll("&.", ""));
+            }
+        }
+    }
+
+    private static void statsCommand(CommandSender sender, boolean reset) {
+        if (!hasPermission(sender, "chatguard.config", "You don't have permission to view ChatGuard statistics.")) {
+            return;
+        }
+
+        if (reset) {
+            resetStats();
+            if (sender instanceof Player) {
+                sender.sendMessage(translate("&aChatGuard statistics reset."));
+            } else {
+                logInfo("ChatGuard statistics reset.");
+            }
+            return;
+        }
+
+        LatencyHistogram latency = getLatency();
+        long minutes = (System.currentTimeMillis() - getSince()) / 60000;
+        List<String> messages = new ArrayList<>();
+        messages.add(String.format("&bChatGuard statistics &7(last %d min):", minutes));
+        messages.add(String.format("&7Messages: &e%d &7scanned, &e%d &7blocked, &e%d &7censored, &e%d &7bypassed",
+                getScanned(), getBlocked(), getCensored(), getBypassed()));
+        messages.add(String.format("&7Spam: &e%d &7flooded, &e%d &7duplicates, &e%d &7muted",
+                getFlooded(), getDuplicates(), getMuted()));
+        messages.add(String.format("&7Latency: &ep50 %s&7, &ep99 %s&7, &ep99.9 %s&7, &emax %s",
+                formatNanos(latency.getPercentile(50)), formatNanos(latency.getPercentile(99)),
+                formatNanos(latency.getPercentile(99.9)), formatNanos(latency.getMax())));
+        FilterEngine engine = getFilter().getEngine();
+        messages.add(String.format("&7Filter: &e%d &7entries in &e%d &7profile(s), version &e%d",
+                engine.size(), getFilter().getProfiles().size() + 1, getFilter().getVersion()));
+        messages.add(String.format("&7Filter memory: &e%s &7(%d states)",
+                formatBytes(engine.getFootprint()), engine.getStateCount()));
+        messages.add(String.format("&7Reports: &e%d &7queued, &e%d &7dropped",
+                getReporter().getQueued(), getReporter().getDropped()));
+        for (Map.Entry<String, Long> hit : getTopHits(5)) {
+            messages.add(String.format("&7- &e%s&7: %d hit(s)", hit.getKey(), hit.getValue()));
+        }
+
+        for (String message : messages) {
+            if (sender instanceof Player) {
+                sender.sendMessage(translate(message));
+            } else {
+                logInfo(message.replaceAll("&.", ""));
+            }
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1000) {
+            return nanos + "ns";
+        } else if (nanos < 1000000) {
+            return String.format("%.1fus", nanos / 1000.0);
+        } else {
+            return String.format("%.1fms", nanos / 1000000.0);
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1fKB", bytes / 1024.0);
+        } else {
+            return String.format("%.1fMB", bytes / (1024.0 * 1024.0));
+        }
+    }
+
+    private static void strikesCommand(CommandSender sender, String player, boolean clear) {
+        if (!hasPermission(sender, "chatguard.config", "You don't have permission to manage ChatGuard strikes.")) {
+            return;
+        }
+
+        StrikeTracker strikes = getStrikes();
+        String message;
+        if (strikes == null) {
+            message = "&cChatGuard strikes are disabled.";
+        } else if (clear) {
+            message = strikes.pardon(player)
+                    ? String.format("&aCleared the strikes of &e%s&a.", player)
+                    : String.format("&e%s &7has no strikes.", player);
+        } else {
+            long now = System.currentTimeMillis();
+            long muted = strikes.getMuteRemaining(player, now);
+            message = String.format("&e%s &7has &e%.1f &7strike(s)%s", player, strikes.getScore(player, now),
+                    muted > 0 ? String.format(" and is muted for &e%ds&7.", (muted + 999) / 1000) : ".");
+        }
 
         if (sender instanceof Player) {
-            sender.sendMessage(translate("&aChatGuard config reloaded."));
+            sender.sendMessage(translate(message));
+        } else {
+            logInfo(message.replaceAll("&.", ""));
+        }
+    }
+
+    private static void historyCommand(CommandSender sender, String player, String count) {
+        if (!hasPermission(sender, "chatguard.config", "You don't have permission to view ChatGuard history.")) {
+            return;
         }
+
+        ViolationStore history = getHistory();
+        if (history == null) {
+            if (sender instanceof Player) {
+                sender.sendMessage(translate("&cChatGuard violation history is disabled."));
+            } else {
+                logInfo("ChatGuard violation history is disabled.");
+            }
+            return;
+        }
+
+        int limit;
+        try {
+            limit = Math.max(1, Math.min(100, Integer.parseInt(count)));
+        } catch (NumberFormatException e) {
+            if (sender instanceof Player) {
+                sender.sendMessage(translate(String.format("&e%s &cisn't a valid number.", count)));
+            } else {
+                logInfo(String.format("%s isn't a valid number.", count));
+            }
+            return;
+        }
+
+        // Following a long chain of records hits the disk, so the lookup stays off the main thread.
+        getInstance().getServer().getScheduler().scheduleAsyncDelayedTask(getInstance(), () -> {
+            List<Violation> violations;
+            try {
+                violations = history.getRecent(player, limit);
+            } catch (IOException e) {
+                logSevere(String.format("[ChatGuard] Failed to read violation history: %s", e.getMessage()));
+                if (sender instanceof Player) {
+                    sendLater(sender, "&cFailed to read the violation history.");
+                }
+                return;
+            }
+
+            List<String> messages = new ArrayList<>(violations.size() + 1);
+            if (violations.isEmpty()) {
+                messages.add(String.format("&e%s &7has no recorded violations.", player));
+            } else {
+                messages.add(String.format("&bLast %d violation(s) of &e%s&b:", violations.size(), player));
+                SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+                for (Violation violation : violations) {
+                    messages.add(String.format("&7%s &e%s &7%s", format.format(new Date(violation.getTime())),
+                            violation.getType().name().toLowerCase(), violation.getDetail()));
+                }
+            }
+            sendLater(sender, messages);
+        });
     }
 
     private static void toggleCommand(CommandSender sender) {
@@ -147,10 +390,10 @@ public class ChatGuardCommand implements CommandExecutor {
             return;
         }
 
-        boolean current = getConfig().getBoolean("chatguard.toggle", true);
+        boolean current = getSettings().isToggle();
         getConfig().setProperty("chatguard.toggle", !current);
-        getConfig().saveConfig();
-        resetFilter();
+        getConfig().requestSave();
+        resetSettings();
 
         String result;
         if (!current) {
@@ -172,17 +415,25 @@ public class ChatGuardCommand implements CommandExecutor {
         }
 
         if (check) {
-            if (getFilter().contains(message)) {
+            boolean added;
+            try {
+                added = addEntry(message);
+            } catch (IllegalArgumentException e) {
+                if (sender instanceof Player) {
+                    sender.sendMessage(translate(String.format("&e%s &cisn't a valid pattern: %s.", message, e.getMessage())));
+                } else {
+                    logInfo(String.format("%s isn't a valid pattern: %s.", message, e.getMessage()));
+                }
+                return;
+            }
+
+            if (!added) {
                 if (sender instanceof Player) {
                     sender.sendMessage(translate(String.format("&e%s &cis already filtered.", message)));
                 } else {
                     logInfo(String.format("%s is already filtered.", message));
                 }
             } else {
-                getFilter().add(message);
-                getConfig().setProperty("chatguard.filter", getFilter());
-                getConfig().saveConfig();
-                resetFilter();
                 if (sender instanceof Player) {
                     sender.sendMessage(translate(String.format("&e%s &aadded to the filter.", message)));
                 } else {
@@ -190,17 +441,13 @@ public class ChatGuardCommand implements CommandExecutor {
                 }
             }
         } else {
-            if (!getFilter().contains(message)) {
+            if (!removeEntry(message)) {
                 if (sender instanceof Player) {
                     sender.sendMessage(translate(String.format("&e%s &cisn't filtered.", message)));
                 } else {
                     logInfo(String.format("%s isn't filtered.", message));
                 }
             } else {
-                getFilter().remove(message);
-                getConfig().setProperty("chatguard.filter", getFilter());
-                getConfig().saveConfig();
-                resetFilter();
                 if (sender instanceof Player) {
                     sender.sendMessage(translate(String.format("&e%s &aremoved from the filter.", message)));
                 } else {
@@ -209,4 +456,111 @@ public class ChatGuardCommand implements CommandExecutor {
             }
         }
     }
+
+    private static void importCommand(CommandSender sender, String name) {
+        if (!hasPermission(sender, "chatguard.config", "You don't have permission to change the ChatGuard config.")) {
+            return;
+        }
+
+        File file = resolveWordlist(sender, name);
+        if (file == null) {
+            return;
+        }
+        if (!file.isFile()) {
+            sendLater(sender, String.format("&e%s &cdoesn't exist.", name));
+            return;
+        }
+        if (!transferring.compareAndSet(false, true)) {
+            sendLater(sender, "&cA wordlist import or export is already running.");
+            return;
+        }
+
+        sendLater(sender, String.format("&7Importing &e%s&7...", name));
+        getInstance().getServer().getScheduler().scheduleAsyncDelayedTask(getInstance(), () -> {
+            long start = System.nanoTime();
+            Set<String> batch = new LinkedHashSet<>();
+            long[] repeated = new long[1];
+            long[] invalid = new long[1];
+            try {
+                long lines = WordlistUtil.read(file, entry -> {
+                    if (batch.contains(entry)) {
+                        repeated[0]++;
+                        return;
+                    }
+                    try {
+                        FilterPattern.parse(entry);
+                        batch.add(entry);
+                    } catch (IllegalArgumentException e) {
+                        invalid[0]++;
+                    }
+                }, read -> sendLater(sender, String.format("&7Read &e%d &7lines...", read)));
+
+                int added = addEntries(batch);
+                sendLater(sender, String.format(
+                        "&aImported &e%d &anew entries from &e%s &7(%d lines, %d duplicate, %d invalid, %d ms).",
+                        added, name, lines, repeated[0] + batch.size() - added, invalid[0],
+                        (System.nanoTime() - start) / 1000000));
+            } catch (IOException e) {
+                logSevere(String.format("[ChatGuard] Failed to import wordlist '%s': %s", name, e.getMessage()));
+                sendLater(sender, String.format("&cFailed to import &e%s&c.", name));
+            } finally {
+                transferring.set(false);
+            }
+        });
+    }
+
+    private static void exportCommand(CommandSender sender, String name) {
+        if (!hasPermission(sender, "chatguard.config", "You don't have permission to export the ChatGuard filter.")) {
+            return;
+        }
+
+        File file = resolveWordlist(sender, name);
+        if (file == null) {
+            return;
+        }
+        if (!transferring.compareAndSet(false, true)) {
+            sendLater(sender, "&cA wordlist import or export is already running.");
+            return;
+        }
+
+        List<String> entries = getEntries();
+        getInstance().getServer().getScheduler().scheduleAsyncDelayedTask(getInstance(), () -> {
+            long start = System.nanoTime();
+            try {
+                WordlistUtil.write(file, entries);
+                sendLater(sender, String.format("&aExported &e%d &aentries to &e%s &7(%d ms).",
+                        entries.size(), name, (System.nanoTime() - start) / 1000000));
+            } catch (IOException e) {
+                logSevere(String.format("[ChatGuard] Failed to export wordlist '%s': %s", name, e.getMessage()));
+                sendLater(sender, String.format("&cFailed to export &e%s&c.", name));
+            } finally {
+                transferring.set(false);
+            }
+        });
+    }
+
+    private static File resolveWordlist(CommandSender sender, String name) {
+        try {
+            return WordlistUtil.resolve(getInstance().getDataFolder(), name);
+        } catch (IllegalArgumentException | IOException e) {
+            sendLater(sender, String.format("&e%s &cisn't a valid wordlist file: %s.", name, e.getMessage()));
+            return null;
+        }
+    }
+
+    private static void sendLater(CommandSender sender, String message) {
+        sendLater(sender, Collections.singletonList(message));
+    }
+
+    private static void sendLater(CommandSender sender, List<String> messages) {
+        getInstance().getServer().getScheduler().scheduleSyncDelayedTask(getInstance(), () -> {
+            for (String message : messages) {
+                if (sender instanceof Player) {
+                    sender.sendMessage(translate(message));
+                } else {
+                    logInfo(message.replaceAll("&.", ""));
+                }
+            }
+        });
+    }
 }
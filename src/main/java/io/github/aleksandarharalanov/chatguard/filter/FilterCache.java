@@ -0,0 +1,171 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary file holding a compiled {@link FilterEngine}, so a large filter doesn't have to be rebuilt on every start.
+ * <p>
+ * The file is keyed by a SHA-256 hash of everything the engine is compiled from: the entries of every profile, the
+ * allowlist, the default {@link MatchMode} and the normalizer. {@link #load} only returns an engine when the stored key
+ * matches the current one; a missing, stale, or corrupt file simply yields {@code null}, and the caller compiles as
+ * usual and {@link #save saves} the result for the next start.
+ * <p>
+ * Loading reads the file in one go and copies each array out of the buffer in bulk, which is far cheaper than
+ * inserting every entry and linking the automaton again. The file is not memory-mapped, so nothing keeps it open
+ * afterwards and it can be replaced while the server runs, which Windows refuses for a mapped file.
+ * <p>
+ * <b>Layout:</b> {@code int magic, int version, byte[32] key}, followed by the automaton as written by the engine.
+ * {@link #FORMAT_VERSION} must be raised whenever that layout or the behavior of the {@link StandardNormalizer}
+ * changes, since either makes existing files unusable.
+ */
+public final class FilterCache {
+
+    /**
+     * Version of the file layout, also folded into the key.
+     */
+    public static final int FORMAT_VERSION = 4;
+
+    private static final int MAGIC = 0x43474642;
+    private static final int KEY_SIZE = 32;
+
+    private FilterCache() {
+    }
+
+    /**
+     * Computes the key identifying an engine compiled from the given sources.
+     *
+     * @param entries    the filter entries
+     * @param allowlist  the allowlist
+     * @param mode       the default match mode
+     * @param normalizer the normalizer
+     *
+     * @return the key
+     */
+    public static byte[] key(Collection<String> entries, Collection<String> allowlist, MatchMode mode,
+                             TextNormalizer normalizer) {
+        return key(Collections.singletonList(entries), allowlist, mode, normalizer);
+    }
+
+    /**
+     * Computes the key identifying an engine compiled from the given profiles.
+     *
+     * @param profiles   the filter entries of each profile, in bit order
+     * @param allowlist  the allowlist
+     * @param mode       the default match mode
+     * @param normalizer the normalizer
+     *
+     * @return the key
+     */
+    public static byte[] key(List<? extends Collection<String>> profiles, Collection<String> allowlist,
+                             MatchMode mode, TextNormalizer normalizer) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        update(digest, String.valueOf(FORMAT_VERSION));
+        update(digest, normalizer.getClass().getName());
+        update(digest, mode.name());
+        for (Collection<String> entries : profiles) {
+            digest.update((byte) 1);
+            for (String entry : entries) {
+                update(digest, entry);
+            }
+        }
+        digest.update((byte) 2);
+        for (String word : allowlist) {
+            update(digest, word);
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * Loads the engine stored in a file if it was compiled from the sources identified by the key.
+     *
+     * @param file       the cache file
+     * @param key        the key computed by {@link #key}
+     * @param normalizer the normalizer the engine was compiled with
+     *
+     * @return the engine, or {@code null} if the file doesn't exist or holds a different filter or format version
+     *
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public static FilterEngine load(File file, byte[] key, TextNormalizer normalizer) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.remaining() < 8 + KEY_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+
+        byte[] stored = new byte[KEY_SIZE];
+        buffer.get(stored);
+        if (!Arrays.equals(stored, key)) {
+            return null;
+        }
+        return FilterEngine.read(buffer, normalizer);
+    }
+
+    /**
+     * Writes an engine to a file, keyed by the sources it was compiled from.
+     * <p>
+     * The engine is written to a temporary file first and moved into place atomically, so a crash never leaves a
+     * partial file behind under the real name.
+     *
+     * @param file   the cache file
+     * @param key    the key computed by {@link #key}
+     * @param engine the engine to store
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static synchronized void save(File file, byte[] key, FilterEngine engine) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Path temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(key);
+                engine.write(out);
+            }
+
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
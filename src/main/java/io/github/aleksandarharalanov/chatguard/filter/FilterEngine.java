@@ -0,0 +1,835 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-pattern matching engine compiled from the filter list.
+ * <p>
+ * Every filter entry, including every variant of a {@link FilterPattern}, is inserted into a single Aho-Corasick
+ * automaton, so a message is scanned exactly once no matter how many entries the filter holds. Each character advances
+ * the automaton by one transition, and failure links let the scan fall back to the longest suffix that is still a
+ * prefix of some entry instead of restarting.
+ * <p>
+ * Messages and entries both pass through the same {@link TextNormalizer} first. During the scan, a repeated character
+ * that neither the current state nor any of its failure links short of the root can consume is absorbed into the
+ * previous one, which folds stretched words such as {@code fuuuck} without breaking entries that double a letter
+ * themselves or start on the repeat.
+ * <p>
+ * Word boundaries and the allowlist are resolved inside the same scan. Each entry carries the boundaries its
+ * {@link MatchMode} requires, checked in constant time when the entry is reached. Allowlisted words are inserted into
+ * the same automaton as exempt terminals; when one is reached, the filter matches it covers are discarded, so
+ * {@code class} or {@code assume} can be allowed without a second pass over the message.
+ * <p>
+ * Entries may belong to up to 64 filter profiles. All profiles share the one automaton and each entry carries a
+ * bitmask of the profiles it belongs to, so a word listed by several profiles is stored once, and a single scan
+ * yields the matches of every profile; {@link #scan(CharSequence, FilterMatches, long)} keeps only those of the
+ * requested ones. Distinct entries may still end at the same state, such as {@code <ass>} and {@code *ass*}, or
+ * {@code fück} and {@code fuck} once normalized; each state then holds a chain of the entries ending there, and each
+ * keeps its own boundaries and profiles.
+ * <p>
+ * The automaton is stored in flat primitive arrays rather than one object per state: states are integers, the edges of
+ * each state are a sorted run of characters and targets looked up by binary search, and failure links, output links,
+ * depths and entry chains are parallel arrays indexed by state. A state costs a few dozen bytes however many entries
+ * share it, which keeps wordlists with hundreds of thousands of entries affordable; {@link #getFootprint()} reports the
+ * total.
+ * <p>
+ * <b>Note:</b> Instances are immutable once compiled and can be shared freely between threads.
+ */
+public final class FilterEngine {
+
+    private static final byte ANCHOR_START = 1;
+    private static final byte ANCHOR_END = 2;
+    private static final int ROOT = 0;
+
+    /**
+     * Maximum number of profiles an engine can be compiled from.
+     */
+    public static final int MAX_PROFILES = 64;
+
+    /**
+     * Profile mask selecting every profile.
+     */
+    public static final long ALL_PROFILES = -1L;
+
+    private final int[] edgeStart;
+    private final char[] edgeChar;
+    private final int[] edgeTarget;
+    private final int[] fail;
+    private final int[] output;
+    private final int[] depth;
+    private final int[] rule;
+    private final int[] ruleEntry;
+    private final int[] ruleNext;
+    private final long[] allow;
+    private final String[] entries;
+    private final byte[] anchors;
+    private final long[] profiles;
+    private final String[] rejected;
+    private final TextNormalizer normalizer;
+    private final int maxDepth;
+    private final long footprint;
+
+    private FilterEngine(int[] edgeStart, char[] edgeChar, int[] edgeTarget, int[] fail, int[] output, int[] depth,
+                         int[] rule, int[] ruleEntry, int[] ruleNext, long[] allow, String[] entries, byte[] anchors,
+                         long[] profiles, String[] rejected, TextNormalizer normalizer, int maxDepth) {
+        this.edgeStart = edgeStart;
+        this.edgeChar = edgeChar;
+        this.edgeTarget = edgeTarget;
+        this.fail = fail;
+        this.output = output;
+        this.depth = depth;
+        this.rule = rule;
+        this.ruleEntry = ruleEntry;
+        this.ruleNext = ruleNext;
+        this.allow = allow;
+        this.entries = entries;
+        this.anchors = anchors;
+        this.profiles = profiles;
+        this.rejected = rejected;
+        this.normalizer = normalizer;
+        this.maxDepth = maxDepth;
+        this.footprint = measure();
+    }
+
+    /**
+     * Compiles the given filter entries into a new substring-matching engine using the {@link StandardNormalizer}.
+     *
+     * @param filter the filter entries to compile
+     *
+     * @return the compiled engine
+     */
+    public static FilterEngine compile(Collection<String> filter) {
+        return compile(filter, Collections.<String>emptyList(), MatchMode.SUBSTRING, StandardNormalizer.INSTANCE);
+    }
+
+    /**
+     * Compiles the given filter entries into a new engine.
+     * <p>
+     * Each entry is parsed as a {@link FilterPattern}, and every variant it expands into is normalized with the given
+     * normalizer and inserted into the shared automaton. Duplicate entries and variants that are empty once
+     * normalized are ignored. Entries that aren't valid patterns are skipped and reported by
+     * {@link #getRejected()}, so one bad entry never disables the whole filter. Every entry belongs to profile
+     * {@code 0}.
+     *
+     * @param filter      the filter entries to compile
+     * @param allowlist   words exempt from the filter; a match lying entirely inside one of them is ignored
+     * @param defaultMode the match mode applied to entry edges not marked in the pattern
+     * @param normalizer  the normalizer applied to the entries, the allowlist and every scanned text
+     *
+     * @return the compiled engine
+     */
+    public static FilterEngine compile(Collection<String> filter, Collection<String> allowlist, MatchMode defaultMode,
+                                       TextNormalizer normalizer) {
+        return compile(Collections.singletonList(filter), allowlist, defaultMode, normalizer);
+    }
+
+    /**
+     * Compiles the entries of several profiles into one shared engine.
+     * <p>
+     * Profile {@code i} is identified by bit {@code 1L << i} in the masks returned by {@link #getProfiles(int)} and
+     * accepted by {@link #scan(CharSequence, FilterMatches, long)}. An entry listed by several profiles is compiled
+     * once and carries all of their bits. Distinct entries sharing a variant share its states, but each keeps its own
+     * match mode and profiles. Otherwise, entries are handled as by
+     * {@link #compile(Collection, Collection, MatchMode, TextNormalizer)}.
+     *
+     * @param profiles    the filter entries of each profile, in bit order
+     * @param allowlist   words exempt from the filter in every profile
+     * @param defaultMode the match mode applied to entry edges not marked in the pattern
+     * @param normalizer  the normalizer applied to the entries, the allowlist and every scanned text
+     *
+     * @return the compiled engine
+     *
+     * @throws IllegalArgumentException if there are more than {@link #MAX_PROFILES} profiles
+     */
+    public static FilterEngine compile(List<? extends Collection<String>> profiles, Collection<String> allowlist,
+                                       MatchMode defaultMode, TextNormalizer normalizer) {
+        if (profiles.size() > MAX_PROFILES) {
+            throw new IllegalArgumentException(String.format("at most %d profiles are supported", MAX_PROFILES));
+        }
+
+        int total = 0;
+        for (Collection<String> filter : profiles) {
+            total += filter.size();
+        }
+
+        Builder builder = new Builder(Math.max(16, total * 4));
+        List<String> entries = new ArrayList<>(total);
+        List<Byte> anchors = new ArrayList<>(total);
+        long[] masks = new long[total];
+        List<String> rejected = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        NormalizedText normalized = new NormalizedText();
+
+        for (int profile = 0; profile < profiles.size(); profile++) {
+            long bit = 1L << profile;
+            for (String entry : profiles.get(profile)) {
+                if (entry == null) {
+                    continue;
+                }
+
+                Integer known = seen.get(entry);
+                if (known != null) {
+                    if (known != -1) {
+                        masks[known] |= bit;
+                    }
+                    continue;
+                }
+
+                FilterPattern pattern;
+                try {
+                    pattern = FilterPattern.parse(entry);
+                } catch (IllegalArgumentException e) {
+                    rejected.add(String.format("%s (%s)", entry, e.getMessage()));
+                    seen.put(entry, -1);
+                    continue;
+                }
+
+                int index = entries.size();
+                boolean inserted = false;
+                for (String variant : pattern.getVariants()) {
+                    int state = builder.insert(variant, normalizer, normalized);
+                    if (state != ROOT) {
+                        builder.addRule(state, index);
+                        inserted = true;
+                    }
+                }
+
+                if (inserted) {
+                    entries.add(entry);
+                    anchors.add((byte) ((pattern.anchorsStart(defaultMode) ? ANCHOR_START : 0)
+                            | (pattern.anchorsEnd(defaultMode) ? ANCHOR_END : 0)));
+                    masks[index] |= bit;
+                    seen.put(entry, index);
+                } else {
+                    seen.put(entry, -1);
+                }
+            }
+        }
+
+        for (String word : allowlist) {
+            if (word == null) {
+                continue;
+            }
+
+            int state = builder.insert(word, normalizer, normalized);
+            if (state != ROOT) {
+                builder.allow[state >>> 6] |= 1L << state;
+            }
+        }
+
+        byte[] anchorArray = new byte[anchors.size()];
+        for (int i = 0; i < anchorArray.length; i++) {
+            anchorArray[i] = anchors.get(i);
+        }
+
+        return builder.build(entries.toArray(new String[0]), anchorArray, Arrays.copyOf(masks, entries.size()),
+                rejected.toArray(new String[0]), normalizer);
+    }
+
+    /**
+     * Normalizes the text and scans it once, recording every filter entry found in it.
+     * <p>
+     * The collector is cleared first. Its {@link FilterMatches#getText() buffer} receives the normalized text, and
+     * each match is recorded with the span it covers in the original {@code text}, in the order its last character
+     * appears. Matches that miss a required word boundary, or lie inside an allowlisted word, are not recorded.
+     *
+     * @param text    the text to scan
+     * @param matches the collector receiving the matches
+     *
+     * @return {@code true} if at least one entry was found, otherwise {@code false}
+     */
+    public boolean scan(CharSequence text, FilterMatches matches) {
+        return scan(text, matches, ALL_PROFILES);
+    }
+
+    /**
+     * Normalizes the text and scans it once, recording the entries of the given profiles found in it.
+     * <p>
+     * Behaves like {@link #scan(CharSequence, FilterMatches)}, except that entries belonging to none of the selected
+     * profiles are not recorded.
+     *
+     * @param text     the text to scan
+     * @param matches  the collector receiving the matches
+     * @param profiles the mask of profiles whose entries are recorded, such as {@link #ALL_PROFILES}
+     *
+     * @return {@code true} if at least one entry was found, otherwise {@code false}
+     */
+    public boolean scan(CharSequence text, FilterMatches matches, long profiles) {
+        NormalizedText normalized = matches.getText();
+        normalizer.normalize(text, normalized);
+        matches.clear();
+
+        char[] chars = normalized.chars();
+        int length = normalized.length();
+        int[] positions = matches.positions(maxDepth);
+        int mask = positions.length - 1;
+        int consumed = 0;
+        int state = ROOT;
+
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+
+            // A repeat is absorbed only once no suffix of the current match can take it; restarting from the root
+            // instead would lose the match in progress, so fuuuck still folds into fuck.
+            boolean repeat = i > 0 && c == chars[i - 1];
+            int next = next(state, c);
+            int fallback = state;
+            while (next == -1 && fallback != ROOT && !(repeat && fail[fallback] == ROOT)) {
+                fallback = fail[fallback];
+                next = next(fallback, c);
+            }
+            if (next == -1 && repeat) {
+                continue;
+            }
+            state = next != -1 ? next : ROOT;
+            positions[consumed & mask] = i;
+            consumed++;
+
+            int first = isTerminal(state) ? state : output[state];
+            if (first == ROOT) {
+                continue;
+            }
+
+            int allowed = length;
+            for (int hit = first; hit != ROOT; hit = output[hit]) {
+                if (isAllowed(hit)) {
+                    allowed = Math.min(allowed, positions[(consumed - depth[hit]) & mask]);
+                }
+            }
+            if (allowed < length) {
+                matches.removeWithin(normalized.getOffset(allowed));
+            }
+
+            for (int hit = first; hit != ROOT; hit = output[hit]) {
+                int start = positions[(consumed - depth[hit]) & mask];
+                if (rule[hit] == -1 || start >= allowed) {
+                    continue;
+                }
+
+                // Chains run from the last entry compiled to the first; report the first one that applies.
+                int found = -1;
+                for (int r = rule[hit]; r != -1; r = ruleNext[r]) {
+                    int index = ruleEntry[r];
+                    if ((this.profiles[index] & profiles) != 0 && isBounded(chars, length, start, i, anchors[index])) {
+                        found = index;
+                    }
+                }
+                if (found != -1) {
+                    matches.add(found, normalized.getOffset(start), normalized.getOffset(i) + 1);
+                }
+            }
+        }
+
+        return !matches.isEmpty();
+    }
+
+    /**
+     * Follows the edge labelled {@code c} out of a state.
+     *
+     * @param state the state to leave
+     * @param c     the edge label
+     *
+     * @return the target state, or {@code -1} if the state has no such edge
+     */
+    private int next(int state, char c) {
+        return next(edgeStart, edgeChar, edgeTarget, state, c);
+    }
+
+    private static int next(int[] edgeStart, char[] edgeChar, int[] edgeTarget, int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = edgeChar[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return edgeTarget[middle];
+            }
+        }
+        return -1;
+    }
+
+    private boolean isAllowed(int state) {
+        return (allow[state >>> 6] & (1L << state)) != 0;
+    }
+
+    private boolean isTerminal(int state) {
+        return rule[state] != -1 || isAllowed(state);
+    }
+
+    /**
+     * Checks if a match satisfies the word boundaries its entry requires.
+     * <p>
+     * Repeats of the last matched character are skipped before checking the end, matching the way the scan absorbs
+     * them, so {@code fuckkk} still ends at a word boundary.
+     *
+     * @param chars   the normalized text
+     * @param length  the length of the normalized text
+     * @param start   the normalized index of the first matched character
+     * @param end     the normalized index of the last matched character
+     * @param anchors the anchor flags of the entry
+     *
+     * @return {@code true} if every required boundary is present, otherwise {@code false}
+     */
+    private static boolean isBounded(char[] chars, int length, int start, int end, byte anchors) {
+        if ((anchors & ANCHOR_START) != 0 && start > 0 && Character.isLetterOrDigit(chars[start - 1])) {
+            return false;
+        }
+        if ((anchors & ANCHOR_END) != 0) {
+            int after = end + 1;
+            while (after < length && chars[after] == chars[end]) {
+                after++;
+            }
+            return after == length || !Character.isLetterOrDigit(chars[after]);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the compiled automaton in the layout read back by {@link #read(ByteBuffer, TextNormalizer)}.
+     * <p>
+     * The normalizer is not written; the reader must supply the one the engine was compiled with.
+     *
+     * @param out the stream to write to
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(fail.length);
+        out.writeInt(edgeChar.length);
+        out.writeInt(entries.length);
+        out.writeInt(ruleEntry.length);
+        out.writeInt(rejected.length);
+        out.writeInt(maxDepth);
+        writeInts(out, edgeStart);
+        for (char c : edgeChar) {
+            out.writeChar(c);
+        }
+        writeInts(out, edgeTarget);
+        writeInts(out, fail);
+        writeInts(out, output);
+        writeInts(out, depth);
+        writeInts(out, rule);
+        writeInts(out, ruleEntry);
+        writeInts(out, ruleNext);
+        for (long bits : allow) {
+            out.writeLong(bits);
+        }
+        out.write(anchors);
+        for (long mask : profiles) {
+            out.writeLong(mask);
+        }
+        writeStrings(out, entries);
+        writeStrings(out, rejected);
+    }
+
+    /**
+     * Reads an automaton written by {@link #write(DataOutputStream)}.
+     * <p>
+     * Arrays are copied out of the buffer in bulk, so no trie has to be built or linked.
+     *
+     * @param in         the buffer positioned at the start of the automaton
+     * @param normalizer the normalizer the engine was compiled with
+     *
+     * @return the engine
+     *
+     * @throws IOException if the buffer doesn't hold a consistent automaton
+     */
+    static FilterEngine read(ByteBuffer in, TextNormalizer normalizer) throws IOException {
+        try {
+            int states = in.getInt();
+            int edges = in.getInt();
+            int entryCount = in.getInt();
+            int ruleCount = in.getInt();
+            int rejectedCount = in.getInt();
+            int maxDepth = in.getInt();
+            if (states < 1 || edges != states - 1 || entryCount < 0 || ruleCount < entryCount || rejectedCount < 0
+                    || maxDepth < 1) {
+                throw new IOException("inconsistent automaton header");
+            }
+
+            int[] edgeStart = readInts(in, states + 1);
+            char[] edgeChar = new char[edges];
+            in.asCharBuffer().get(edgeChar);
+            in.position(in.position() + edges * 2);
+            int[] edgeTarget = readInts(in, edges);
+            int[] fail = readInts(in, states);
+            int[] output = readInts(in, states);
+            int[] depth = readInts(in, states);
+            int[] rule = readInts(in, states);
+            int[] ruleEntry = readInts(in, ruleCount);
+            int[] ruleNext = readInts(in, ruleCount);
+            long[] allow = new long[(states + 63) >>> 6];
+            in.asLongBuffer().get(allow);
+            in.position(in.position() + allow.length * 8);
+            byte[] anchors = new byte[entryCount];
+            in.get(anchors);
+            long[] profiles = new long[entryCount];
+            in.asLongBuffer().get(profiles);
+            in.position(in.position() + profiles.length * 8);
+            String[] entries = readStrings(in, entryCount);
+            String[] rejected = readStrings(in, rejectedCount);
+
+            if (edgeStart[0] != 0 || edgeStart[states] != edges) {
+                throw new IOException("edge runs out of range");
+            }
+            for (int i = 0; i < states; i++) {
+                if (edgeStart[i] > edgeStart[i + 1]) {
+                    throw new IOException("edge runs out of order");
+                }
+            }
+            for (int target : edgeTarget) {
+                if (target <= ROOT || target >= states) {
+                    throw new IOException("edge target out of range");
+                }
+            }
+            for (int i = 0; i < states; i++) {
+                if (fail[i] < 0 || fail[i] >= states || output[i] < 0 || output[i] >= states
+                        || rule[i] < -1 || rule[i] >= ruleCount || depth[i] > maxDepth) {
+                    throw new IOException("state out of range");
+                }
+            }
+            for (int i = 0; i < ruleCount; i++) {
+                // Chains only ever point at earlier rules, which also rules out cycles.
+                if (ruleEntry[i] < 0 || ruleEntry[i] >= entryCount || ruleNext[i] < -1 || ruleNext[i] >= i) {
+                    throw new IOException("entry chain out of range");
+                }
+            }
+
+            return new FilterEngine(edgeStart, edgeChar, edgeTarget, fail, output, depth, rule, ruleEntry, ruleNext,
+                    allow, entries, anchors, profiles, rejected, normalizer, maxDepth);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("truncated automaton", e);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in, int length) {
+        int[] values = new int[length];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + length * 4);
+        return values;
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        for (String value : values) {
+            out.writeInt(value.length());
+            out.writeChars(value);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            char[] chars = new char[in.getInt()];
+            in.asCharBuffer().get(chars);
+            in.position(in.position() + chars.length * 2);
+            values[i] = new String(chars);
+        }
+        return values;
+    }
+
+    private long measure() {
+        long bytes = array(edgeStart.length, 4) + array(edgeChar.length, 2) + array(edgeTarget.length, 4)
+                + array(fail.length, 4) + array(output.length, 4) + array(depth.length, 4) + array(rule.length, 4)
+                + array(ruleEntry.length, 4) + array(ruleNext.length, 4) + array(allow.length, 8)
+                + array(anchors.length, 1) + array(profiles.length, 8) + array(entries.length, 4);
+        for (String value : entries) {
+            bytes += 24 + array(value.length(), 2);
+        }
+        return bytes;
+    }
+
+    private static long array(int length, int width) {
+        return (16 + (long) length * width + 7) & ~7L;
+    }
+
+    /**
+     * Returns the filter entry with the given index, as it was written in the filter list.
+     *
+     * @param index the index reported by {@link FilterMatches#getEntry(int)}
+     *
+     * @return the filter entry
+     */
+    public String getEntry(int index) {
+        return entries[index];
+    }
+
+    /**
+     * Returns the profiles the entry with the given index belongs to.
+     *
+     * @param index the index reported by {@link FilterMatches#getEntry(int)}
+     *
+     * @return the mask of profiles, with bit {@code 1L << i} set for profile {@code i}
+     */
+    public long getProfiles(int index) {
+        return profiles[index];
+    }
+
+    /**
+     * Returns the number of distinct entries compiled into this engine.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * Returns the number of states in the compiled automaton.
+     *
+     * @return the number of states, including the root
+     */
+    public int getStateCount() {
+        return fail.length;
+    }
+
+    /**
+     * Returns an estimate of the heap retained by this engine, including its entry strings.
+     * <p>
+     * The estimate assumes a 64-bit JVM with compressed references and counts array headers and padding.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getFootprint() {
+        return footprint;
+    }
+
+    /**
+     * Returns the entries skipped during compilation because they aren't valid patterns.
+     *
+     * @return the rejected entries, each followed by the reason in parentheses
+     */
+    public String[] getRejected() {
+        return rejected.clone();
+    }
+
+    /**
+     * Returns the normalizer this engine applies to entries and scanned text.
+     *
+     * @return the normalizer
+     */
+    public TextNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Mutable trie used while compiling, stored in growable primitive arrays.
+     * <p>
+     * Edges live in an open-addressing hash table keyed by state and character, so inserting never scans the
+     * children of a state. {@link #build} sorts them into the per-state runs the engine searches.
+     */
+    private static final class Builder {
+
+        private static final long EMPTY = -1L;
+
+        private int states = 1;
+        private int[] depth;
+        private int[] rule;
+        private long[] allow;
+        private int maxDepth = 1;
+
+        private int[] ruleEntry;
+        private int[] ruleNext;
+        private int rules;
+
+        private long[] keys;
+        private int[] targets;
+        private int edges;
+
+        private Builder(int capacity) {
+            depth = new int[capacity];
+            rule = new int[capacity];
+            allow = new long[(capacity + 63) >>> 6];
+            Arrays.fill(rule, -1);
+            ruleEntry = new int[capacity];
+            ruleNext = new int[capacity];
+
+            int slots = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+            keys = new long[slots];
+            targets = new int[slots];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        /**
+         * Normalizes a word and inserts it into the trie.
+         *
+         * @param word       the word to insert
+         * @param normalizer the normalizer to apply
+         * @param normalized the scratch buffer to normalize into
+         *
+         * @return the state the word ends at, or the root if the word is empty once normalized
+         */
+        private int insert(String word, TextNormalizer normalizer, NormalizedText normalized) {
+            normalizer.normalize(word, normalized);
+
+            int state = ROOT;
+            for (int i = 0; i < normalized.length(); i++) {
+                long key = ((long) state << 16) | normalized.charAt(i);
+                int slot = find(key);
+                if (keys[slot] == key) {
+                    state = targets[slot];
+                    continue;
+                }
+
+                int child = addState(depth[state] + 1);
+                keys[slot] = key;
+                targets[slot] = child;
+                if (++edges * 2 > keys.length) {
+                    rehash();
+                }
+                state = child;
+            }
+            return state;
+        }
+
+        /**
+         * Adds an entry to the chain of entries ending at a state, unless the entry heads it already.
+         *
+         * @param state the state a variant of the entry ends at
+         * @param index the entry index
+         */
+        private void addRule(int state, int index) {
+            if (rule[state] != -1 && ruleEntry[rule[state]] == index) {
+                return;
+            }
+            if (rules == ruleEntry.length) {
+                int capacity = rules + (rules >>> 1) + 1;
+                ruleEntry = Arrays.copyOf(ruleEntry, capacity);
+                ruleNext = Arrays.copyOf(ruleNext, capacity);
+            }
+            ruleEntry[rules] = index;
+            ruleNext[rules] = rule[state];
+            rule[state] = rules++;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int addState(int stateDepth) {
+            if (states == depth.length) {
+                int capacity = states + (states >>> 1);
+                depth = Arrays.copyOf(depth, capacity);
+                rule = Arrays.copyOf(rule, capacity);
+                Arrays.fill(rule, states, capacity, -1);
+                allow = Arrays.copyOf(allow, (capacity + 63) >>> 6);
+            }
+            depth[states] = stateDepth;
+            maxDepth = Math.max(maxDepth, stateDepth);
+            return states++;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldTargets = targets;
+            keys = new long[oldKeys.length * 2];
+            targets = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    targets[slot] = oldTargets[i];
+                }
+            }
+        }
+
+        /**
+         * Sorts the edges into per-state runs, computes the failure and output links in breadth-first order and
+         * creates the engine.
+         *
+         * @param entries    the accepted filter entries, indexed by the entry numbers stored in the chains
+         * @param anchors    the anchor flags of each entry
+         * @param profiles   the profile mask of each entry
+         * @param rejected   the entries skipped as invalid
+         * @param normalizer the normalizer the trie was built with
+         *
+         * @return the compiled engine
+         */
+        private FilterEngine build(String[] entries, byte[] anchors, long[] profiles, String[] rejected,
+                                   TextNormalizer normalizer) {
+            long[] sorted = new long[edges];
+            int count = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    sorted[count++] = key;
+                }
+            }
+            Arrays.sort(sorted);
+
+            int[] edgeStart = new int[states + 1];
+            char[] edgeChar = new char[edges];
+            int[] edgeTarget = new int[edges];
+            for (int i = 0; i < edges; i++) {
+                long key = sorted[i];
+                edgeStart[(int) (key >>> 16) + 1]++;
+                edgeChar[i] = (char) key;
+                edgeTarget[i] = targets[find(key)];
+            }
+            for (int state = 0; state < states; state++) {
+                edgeStart[state + 1] += edgeStart[state];
+            }
+            keys = null;
+            targets = null;
+
+            int[] fail = new int[states];
+            int[] output = new int[states];
+            int[] queue = new int[states];
+            int head = 0;
+            int tail = 0;
+            for (int i = edgeStart[ROOT]; i < edgeStart[ROOT + 1]; i++) {
+                queue[tail++] = edgeTarget[i];
+            }
+
+            while (head < tail) {
+                int state = queue[head++];
+                for (int i = edgeStart[state]; i < edgeStart[state + 1]; i++) {
+                    char c = edgeChar[i];
+                    int child = edgeTarget[i];
+
+                    int fallback = fail[state];
+                    int target = next(edgeStart, edgeChar, edgeTarget, fallback, c);
+                    while (target == -1 && fallback != ROOT) {
+                        fallback = fail[fallback];
+                        target = next(edgeStart, edgeChar, edgeTarget, fallback, c);
+                    }
+                    fail[child] = target != -1 ? target : ROOT;
+                    int link = fail[child];
+                    output[child] = rule[link] != -1 || (allow[link >>> 6] & (1L << link)) != 0 ? link : output[link];
+
+                    queue[tail++] = child;
+                }
+            }
+
+            return new FilterEngine(edgeStart, edgeChar, edgeTarget, fail, output, Arrays.copyOf(depth, states),
+                    Arrays.copyOf(rule, states), Arrays.copyOf(ruleEntry, rules), Arrays.copyOf(ruleNext, rules),
+                    Arrays.copyOf(allow, (states + 63) >>> 6), entries, anchors, profiles, rejected, normalizer,
+                    maxDepth);
+        }
+
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.util.Arrays;
+
+/**
+ * Reusable collector for the matches reported by {@link FilterEngine#scan}.
+ * <p>
+ * Matches are stored in parallel primitive arrays that only grow, so a collector kept per thread scans message after
+ * message without allocating. Each match records the entry index and the {@code [start, end)} span it covers in the
+ * original text. The collector also owns the {@link NormalizedText} buffer the scanned text is normalized into.
+ * <p>
+ * <b>Note:</b> Instances are not thread-safe; use one collector per thread.
+ */
+public final class FilterMatches {
+
+    private int[] entries = new int[8];
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int size;
+    private int[] positions = new int[32];
+    private char[] censored = new char[64];
+    private final NormalizedText text = new NormalizedText();
+
+    /**
+     * Records a match.
+     *
+     * @param entry the index of the matched filter entry
+     * @param start the original index of the first matched character, inclusive
+     * @param end   the original index after the last matched character, exclusive
+     */
+    void add(int entry, int start, int end) {
+        if (size == entries.length) {
+            int capacity = size << 1;
+            entries = Arrays.copyOf(entries, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        entries[size] = entry;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * Discards the recorded matches lying entirely at or after the given original index.
+     * <p>
+     * Used when an allowlisted word is reached: matches are ordered by their end, so only the tail of the list can lie
+     * inside the allowlisted span and the walk stops at the first match ending before it.
+     *
+     * @param start the original index where the allowlisted span starts
+     */
+    void removeWithin(int start) {
+        int kept = size;
+        for (int i = size - 1; i >= 0 && ends[i] > start; i--) {
+            if (starts[i] >= start) {
+                kept--;
+                System.arraycopy(entries, i + 1, entries, i, kept - i);
+                System.arraycopy(starts, i + 1, starts, i, kept - i);
+                System.arraycopy(ends, i + 1, ends, i, kept - i);
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Returns the scratch ring the engine uses to remember where each consumed character sits in the normalized text.
+     *
+     * @param depth the deepest entry of the engine
+     *
+     * @return a ring whose length is a power of two of at least {@code depth}
+     */
+    int[] positions(int depth) {
+        if (positions.length < depth) {
+            positions = new int[Integer.highestOneBit(depth - 1) << 1];
+        }
+        return positions;
+    }
+
+    /**
+     * Rewrites the scanned text with every matched span replaced.
+     * <p>
+     * The text is copied once into a buffer kept by this collector, and each recorded span is overwritten in place.
+     * Spans are already in original coordinates, so characters the normalizer dropped or folded, such as the dots in
+     * {@code f.u.c.k} or the accent in {@code fück}, are covered exactly. A span is also extended over repeats of its
+     * last character, so {@code fuckkk} is censored as a whole, as it was matched. Whitespace and {@code §} color codes
+     * inside a span are kept.
+     *
+     * @param text        the text passed to the last {@link FilterEngine#scan} call
+     * @param replacement the character written over matched characters
+     *
+     * @return the censored text, or {@code text} itself if nothing was matched
+     */
+    public String censor(String text, char replacement) {
+        if (size == 0) {
+            return text;
+        }
+
+        int length = text.length();
+        if (censored.length < length) {
+            censored = new char[Math.max(length, censored.length << 1)];
+        }
+        char[] chars = censored;
+        text.getChars(0, length, chars, 0);
+
+        for (int i = 0; i < size; i++) {
+            int end = ends[i];
+            char last = Character.toLowerCase(text.charAt(end - 1));
+            while (end < length && Character.toLowerCase(text.charAt(end)) == last) {
+                end++;
+            }
+
+            for (int j = starts[i]; j < end; j++) {
+                char c = text.charAt(j);
+                if (c == '\u00A7') {
+                    j++;
+                } else if (!Character.isWhitespace(c)) {
+                    chars[j] = replacement;
+                }
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Returns the buffer holding the normalized form of the last scanned text.
+     *
+     * @return the normalized text buffer
+     */
+    public NormalizedText getText() {
+        return text;
+    }
+
+    /**
+     * Removes all recorded matches while keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of recorded matches.
+     *
+     * @return the number of matches
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if no matches have been recorded.
+     *
+     * @return {@code true} if there are no matches, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the entry index of the match at the given position.
+     *
+     * @param index the position of the match, from {@code 0} to {@link #size()} exclusive
+     *
+     * @return the index of the matched entry, resolvable with {@link FilterEngine#getEntry(int)}
+     */
+    public int getEntry(int index) {
+        return entries[index];
+    }
+
+    /**
+     * Returns the start of the match at the given position.
+     *
+     * @param index the position of the match, from {@code 0} to {@link #size()} exclusive
+     *
+     * @return the original index of the first matched character, inclusive
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Returns the end of the match at the given position.
+     *
+     * @param index the position of the match, from {@code 0} to {@link #size()} exclusive
+     *
+     * @return the original index after the last matched character, exclusive
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+}
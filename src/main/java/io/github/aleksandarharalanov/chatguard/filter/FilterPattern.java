@@ -0,0 +1,265 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed form of a filter entry written in the restricted pattern syntax.
+ * <p>
+ * The syntax is deliberately limited to constructs that expand into a bounded set of literal variants, so every entry
+ * can be compiled into the one shared {@link FilterEngine} automaton and the scan stays linear in the message length:
+ * <ul>
+ * <li>{@code [abc]} or {@code [a-z]} matches one character from the class;</li>
+ * <li>{@code ?} matches any single letter;</li>
+ * <li>{@code +} lets the preceding character repeat, as in {@code g+};</li>
+ * <li>{@code \} escapes the next character, so {@code \?} matches a literal question mark.</li>
+ * </ul>
+ * The first and last character may also mark how that edge of the entry lines up with word boundaries: {@code *} lets
+ * the edge fall inside a word, while {@code <} at the start or {@code >} at the end requires a word boundary. So
+ * {@code *ass*} matches anywhere, {@code <ass>} only as a whole word and {@code <ass*} only at the start of a word.
+ * Unmarked edges follow the configured default {@link MatchMode}.
+ * <p>
+ * An entry without any of these is a plain literal, as before. Patterns whose expansion would add too many states to
+ * the automaton are rejected with an {@link IllegalArgumentException}.
+ */
+public final class FilterPattern {
+
+    /**
+     * Maximum number of literal variants a single pattern may expand into.
+     */
+    public static final int MAX_VARIANTS = 256;
+
+    /**
+     * Maximum number of automaton states a single pattern may add, estimated as variants times length.
+     */
+    public static final int MAX_STATES = 4096;
+
+    private final String source;
+    private final List<String> variants;
+    private final Edge start;
+    private final Edge end;
+
+    private FilterPattern(String source, List<String> variants, Edge start, Edge end) {
+        this.source = source;
+        this.variants = variants;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a filter entry.
+     *
+     * @param source the filter entry
+     *
+     * @return the parsed pattern
+     *
+     * @throws IllegalArgumentException if the entry isn't a valid pattern or expands into too many states
+     */
+    public static FilterPattern parse(String source) {
+        int start = 0;
+        int end = source.length();
+        Edge startEdge = Edge.DEFAULT;
+        Edge endEdge = Edge.DEFAULT;
+        if (end > 0 && (source.charAt(0) == '*' || source.charAt(0) == '<')) {
+            startEdge = source.charAt(0) == '*' ? Edge.OPEN : Edge.ANCHORED;
+            start++;
+        }
+        if (end > start && (source.charAt(end - 1) == '*' || source.charAt(end - 1) == '>')
+                && !isEscaped(source, end - 1)) {
+            endEdge = source.charAt(end - 1) == '*' ? Edge.OPEN : Edge.ANCHORED;
+            end--;
+        }
+
+        List<char[]> atoms = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (++i >= end) {
+                        throw new IllegalArgumentException("dangling escape at the end");
+                    }
+                    atoms.add(new char[]{source.charAt(i)});
+                    break;
+                case '[':
+                    int close = source.indexOf(']', i + 1);
+                    if (close == -1 || close >= end) {
+                        throw new IllegalArgumentException("unclosed character class");
+                    }
+                    atoms.add(parseClass(source, i + 1, close));
+                    i = close;
+                    break;
+                case '?':
+                    atoms.add(letters());
+                    break;
+                case '+':
+                    if (atoms.isEmpty()) {
+                        throw new IllegalArgumentException("'+' must follow a character");
+                    }
+                    break;
+                case '*':
+                    throw new IllegalArgumentException("'*' is only allowed at the start or end");
+                case '<':
+                case '>':
+                    throw new IllegalArgumentException("'<' and '>' are only allowed at the start and end");
+                case ']':
+                    throw new IllegalArgumentException("unopened character class");
+                default:
+                    atoms.add(new char[]{c});
+                    break;
+            }
+        }
+
+        if (atoms.isEmpty()) {
+            throw new IllegalArgumentException("pattern is empty");
+        }
+
+        long count = 1;
+        for (char[] atom : atoms) {
+            count *= atom.length;
+            if (count > MAX_VARIANTS || count * atoms.size() > MAX_STATES) {
+                throw new IllegalArgumentException(String.format(
+                        "expands into too many variants (limit %d variants, %d states)", MAX_VARIANTS, MAX_STATES));
+            }
+        }
+
+        List<String> variants = new ArrayList<>((int) count);
+        expand(atoms, 0, new char[atoms.size()], variants);
+        return new FilterPattern(source, Collections.unmodifiableList(variants), startEdge, endEdge);
+    }
+
+    private static boolean isEscaped(String source, int index) {
+        int backslashes = 0;
+        for (int i = index - 1; i >= 0 && source.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return (backslashes & 1) == 1;
+    }
+
+    private static char[] parseClass(String source, int from, int to) {
+        StringBuilder members = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            if (c == '^' && i == from) {
+                throw new IllegalArgumentException("negated character classes aren't supported");
+            }
+            if (i + 2 < to && source.charAt(i + 1) == '-') {
+                char last = source.charAt(i + 2);
+                if (last < c) {
+                    throw new IllegalArgumentException(String.format("invalid range %c-%c", c, last));
+                }
+                for (char member = c; member <= last; member++) {
+                    if (members.indexOf(String.valueOf(member)) == -1) {
+                        members.append(member);
+                    }
+                }
+                i += 2;
+            } else if (members.indexOf(String.valueOf(c)) == -1) {
+                members.append(c);
+            }
+        }
+
+        if (members.length() == 0) {
+            throw new IllegalArgumentException("empty character class");
+        }
+        return members.toString().toCharArray();
+    }
+
+    private static char[] letters() {
+        char[] letters = new char[26];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + i);
+        }
+        return letters;
+    }
+
+    private static void expand(List<char[]> atoms, int index, char[] current, List<String> out) {
+        if (index == atoms.size()) {
+            out.add(new String(current));
+            return;
+        }
+        for (char c : atoms.get(index)) {
+            current[index] = c;
+            expand(atoms, index + 1, current, out);
+        }
+    }
+
+    /**
+     * Returns the filter entry this pattern was parsed from.
+     *
+     * @return the source entry
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the literal variants this pattern expands into, before normalization.
+     *
+     * @return an unmodifiable list of variants
+     */
+    public List<String> getVariants() {
+        return variants;
+    }
+
+    /**
+     * Returns how the start of the pattern lines up with word boundaries.
+     *
+     * @return the start edge
+     */
+    public Edge getStart() {
+        return start;
+    }
+
+    /**
+     * Returns how the end of the pattern lines up with word boundaries.
+     *
+     * @return the end edge
+     */
+    public Edge getEnd() {
+        return end;
+    }
+
+    /**
+     * Checks if a match of this pattern must begin at a word boundary.
+     *
+     * @param mode the default mode applied to an unmarked edge
+     *
+     * @return {@code true} if the start is anchored, otherwise {@code false}
+     */
+    public boolean anchorsStart(MatchMode mode) {
+        return start == Edge.DEFAULT ? mode.anchorsStart() : start == Edge.ANCHORED;
+    }
+
+    /**
+     * Checks if a match of this pattern must end at a word boundary.
+     *
+     * @param mode the default mode applied to an unmarked edge
+     *
+     * @return {@code true} if the end is anchored, otherwise {@code false}
+     */
+    public boolean anchorsEnd(MatchMode mode) {
+        return end == Edge.DEFAULT ? mode.anchorsEnd() : end == Edge.ANCHORED;
+    }
+
+    /**
+     * How one edge of a pattern lines up with word boundaries.
+     */
+    public enum Edge {
+
+        /**
+         * The edge wasn't marked and follows the default {@link MatchMode}.
+         */
+        DEFAULT,
+
+        /**
+         * The edge was marked with {@code *} and may fall inside a word.
+         */
+        OPEN,
+
+        /**
+         * The edge was marked with {@code <} or {@code >} and must be at a word boundary.
+         */
+        ANCHORED
+    }
+}
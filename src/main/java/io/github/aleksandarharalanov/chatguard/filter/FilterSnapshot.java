@@ -0,0 +1,196 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the filter.
+ * <p>
+ * A snapshot pairs the filter entries, the allowlist and the default {@link MatchMode} with the {@link FilterEngine}
+ * compiled from them, along with any named profiles whose entries were compiled into the same engine. The filter
+ * entries form profile {@code 0}, and each named profile gets the next bit in order. Snapshots are never modified
+ * after construction; a change to the filter produces a new snapshot with a higher version, which is then published
+ * as a whole. Readers therefore always see a list and an engine that belong together, without locking.
+ */
+public final class FilterSnapshot {
+
+    private final long version;
+    private final List<String> entries;
+    private final Map<String, List<String>> profiles;
+    private final List<String> allowlist;
+    private final MatchMode mode;
+    private final FilterEngine engine;
+
+    private FilterSnapshot(long version, List<String> entries, Map<String, List<String>> profiles,
+                           List<String> allowlist, MatchMode mode, FilterEngine engine) {
+        this.version = version;
+        this.entries = entries;
+        this.profiles = profiles;
+        this.allowlist = allowlist;
+        this.mode = mode;
+        this.engine = engine;
+    }
+
+    /**
+     * Creates a snapshot of the given entries and compiles its engine.
+     *
+     * @param version   the version of the snapshot; expected to increase with every published change
+     * @param entries   the filter entries; copied, so later changes to the collection are not reflected
+     * @param allowlist the words exempt from the filter; copied as well
+     * @param mode      the match mode for entry edges not marked in the pattern
+     *
+     * @return the new snapshot
+     */
+    public static FilterSnapshot of(long version, Collection<String> entries, Collection<String> allowlist,
+                                    MatchMode mode) {
+        return of(version, entries, Collections.<String, List<String>>emptyMap(), allowlist, mode);
+    }
+
+    /**
+     * Creates a snapshot of the given entries and profiles and compiles them into one engine.
+     *
+     * @param version   the version of the snapshot; expected to increase with every published change
+     * @param entries   the filter entries; copied, so later changes to the collection are not reflected
+     * @param profiles  the entries of each named profile, in bit order; copied as well
+     * @param allowlist the words exempt from the filter; copied as well
+     * @param mode      the match mode for entry edges not marked in the pattern
+     *
+     * @return the new snapshot
+     *
+     * @throws IllegalArgumentException if there are more profiles than the engine supports
+     */
+    public static FilterSnapshot of(long version, Collection<String> entries,
+                                    Map<String, ? extends Collection<String>> profiles, Collection<String> allowlist,
+                                    MatchMode mode) {
+        List<String> entryCopy = copy(entries);
+        Map<String, List<String>> profileCopy = copy(profiles);
+        List<String> allowCopy = copy(allowlist);
+        FilterEngine engine = FilterEngine.compile(layers(entryCopy, profileCopy), allowCopy, mode,
+                StandardNormalizer.INSTANCE);
+        return new FilterSnapshot(version, entryCopy, profileCopy, allowCopy, mode, engine);
+    }
+
+    /**
+     * Creates a snapshot around an engine that was already compiled from the given entries and profiles, such as one
+     * loaded from a {@link FilterCache}.
+     *
+     * @param version   the version of the snapshot; expected to increase with every published change
+     * @param entries   the filter entries the engine was compiled from; copied
+     * @param profiles  the entries of each named profile the engine was compiled from, in bit order; copied as well
+     * @param allowlist the words exempt from the filter; copied as well
+     * @param mode      the match mode the engine was compiled with
+     * @param engine    the compiled engine
+     *
+     * @return the new snapshot
+     */
+    public static FilterSnapshot of(long version, Collection<String> entries,
+                                    Map<String, ? extends Collection<String>> profiles, Collection<String> allowlist,
+                                    MatchMode mode, FilterEngine engine) {
+        return new FilterSnapshot(version, copy(entries), copy(profiles), copy(allowlist), mode, engine);
+    }
+
+    /**
+     * Lists the entries of each profile in bit order, as compiled into the engine: the filter entries first, then
+     * each named profile.
+     *
+     * @param entries  the filter entries
+     * @param profiles the entries of each named profile, in bit order
+     *
+     * @return the entries of every profile
+     */
+    public static List<Collection<String>> layers(Collection<String> entries,
+                                                  Map<String, ? extends Collection<String>> profiles) {
+        List<Collection<String>> layers = new ArrayList<>(profiles.size() + 1);
+        layers.add(entries);
+        layers.addAll(profiles.values());
+        return layers;
+    }
+
+    private static List<String> copy(Collection<String> values) {
+        return Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    private static Map<String, List<String>> copy(Map<String, ? extends Collection<String>> profiles) {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> profile : profiles.entrySet()) {
+            copy.put(profile.getKey(), copy(profile.getValue()));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Returns the version of this snapshot.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the filter entries of this snapshot.
+     *
+     * @return an unmodifiable list of the entries
+     */
+    public List<String> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the named profiles of this snapshot.
+     *
+     * @return an unmodifiable map from profile name to its entries, in bit order
+     */
+    public Map<String, List<String>> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Returns the bit identifying a named profile in the masks of the engine.
+     *
+     * @param name the profile name
+     *
+     * @return the profile bit, or {@code 0} if this snapshot has no such profile
+     */
+    public long getProfileBit(String name) {
+        int bit = 1;
+        for (String profile : profiles.keySet()) {
+            if (profile.equals(name)) {
+                return 1L << bit;
+            }
+            bit++;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the allowlist of this snapshot.
+     *
+     * @return an unmodifiable list of the exempt words
+     */
+    public List<String> getAllowlist() {
+        return allowlist;
+    }
+
+    /**
+     * Returns the match mode applied to entry edges not marked in the pattern.
+     *
+     * @return the default match mode
+     */
+    public MatchMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the engine compiled from the entries of this snapshot.
+     *
+     * @return the compiled engine
+     */
+    public FilterEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.util.Locale;
+
+/**
+ * How a filter entry must line up with word boundaries in the message.
+ * <p>
+ * A word boundary is the start or end of the normalized message, or a position next to a character that isn't a
+ * letter or digit. The mode applies to the edges a {@link FilterPattern} leaves unmarked.
+ */
+public enum MatchMode {
+
+    /**
+     * The entry matches anywhere, even inside a longer word; {@code ass} matches {@code class}.
+     */
+    SUBSTRING(false, false),
+
+    /**
+     * The entry must be a whole word; {@code ass} matches {@code ass} but not {@code class} or {@code assume}.
+     */
+    WORD(true, true),
+
+    /**
+     * The entry must start a word but may end inside one; {@code ass} matches {@code asshat} but not {@code class}.
+     */
+    PREFIX(true, false);
+
+    private final boolean anchorsStart;
+    private final boolean anchorsEnd;
+
+    MatchMode(boolean anchorsStart, boolean anchorsEnd) {
+        this.anchorsStart = anchorsStart;
+        this.anchorsEnd = anchorsEnd;
+    }
+
+    /**
+     * Checks if a match must begin at a word boundary.
+     *
+     * @return {@code true} if the start is anchored, otherwise {@code false}
+     */
+    public boolean anchorsStart() {
+        return anchorsStart;
+    }
+
+    /**
+     * Checks if a match must end at a word boundary.
+     *
+     * @return {@code true} if the end is anchored, otherwise {@code false}
+     */
+    public boolean anchorsEnd() {
+        return anchorsEnd;
+    }
+
+    /**
+     * Parses a mode name, ignoring case and treating {@code -} like {@code _}.
+     *
+     * @param name     the mode name, such as {@code "word"}
+     * @param fallback the mode returned if the name is {@code null} or unknown
+     *
+     * @return the parsed mode, or {@code fallback}
+     */
+    public static MatchMode parse(String name, MatchMode fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer holding the output of a {@link TextNormalizer}.
+ * <p>
+ * Alongside the normalized characters, the buffer keeps an offset map from every normalized character back to its
+ * index in the original text, so matches found in the normalized form can be located in the message the player
+ * actually typed. Both arrays only grow, so a buffer kept per thread normalizes without allocating.
+ * <p>
+ * <b>Note:</b> Instances are not thread-safe; use one buffer per thread.
+ */
+public final class NormalizedText {
+
+    private char[] chars = new char[64];
+    private int[] offsets = new int[64];
+    private int length;
+
+    /**
+     * Empties the buffer while keeping the allocated capacity.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Appends a normalized character.
+     *
+     * @param c      the normalized character
+     * @param offset the index of the character in the original text it was derived from
+     */
+    public void append(char c, int offset) {
+        if (length == chars.length) {
+            int capacity = length << 1;
+            chars = Arrays.copyOf(chars, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        chars[length] = c;
+        offsets[length] = offset;
+        length++;
+    }
+
+    /**
+     * Removes trailing characters, such as a separator left at the end of the text.
+     *
+     * @param length the new length; must not exceed the current length
+     */
+    public void truncate(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of normalized characters.
+     *
+     * @return the length of the normalized text
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the normalized character at the given index.
+     *
+     * @param index the index, from {@code 0} to {@link #length()} exclusive
+     *
+     * @return the normalized character
+     */
+    public char charAt(int index) {
+        return chars[index];
+    }
+
+    /**
+     * Returns the original index of the normalized character at the given index.
+     *
+     * @param index the index, from {@code 0} to {@link #length()} exclusive
+     *
+     * @return the index of the character in the original text
+     */
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the backing character array; only the first {@link #length()} characters are valid.
+     *
+     * @return the backing array
+     */
+    char[] chars() {
+        return chars;
+    }
+
+    /**
+     * Returns the normalized text as a new string.
+     * <p>
+     * Intended for compiling filter entries and for diagnostics, not for the per-message path.
+     *
+     * @return the normalized text
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
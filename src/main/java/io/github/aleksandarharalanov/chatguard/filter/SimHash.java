@@ -0,0 +1,81 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.util.Arrays;
+
+/**
+ * Computes 64-bit SimHash fingerprints of normalized text.
+ * <p>
+ * The text is split into overlapping shingles of three characters, and each shingle is hashed to 64 bits. Every bit
+ * of the fingerprint is set if the majority of shingle hashes have it set. Texts sharing most of their shingles
+ * therefore produce fingerprints that differ in only a few bits, so the Hamming distance between two fingerprints,
+ * {@code Long.bitCount(a ^ b)}, estimates how different the texts are. A small edit to a long message flips only a
+ * handful of bits, while unrelated messages differ in about half of them.
+ * <p>
+ * Fingerprints are computed from the {@link NormalizedText} a scan already produced, so case, accents, leetspeak and
+ * inserted punctuation don't disguise a repeated message.
+ * <p>
+ * <b>Note:</b> Instances keep a small scratch array and are not thread-safe; use one instance per thread.
+ */
+public final class SimHash {
+
+    private static final int SHINGLE = 3;
+
+    private final int[] weights = new int[64];
+
+    /**
+     * Computes the fingerprint of a normalized text.
+     *
+     * @param text the normalized text
+     *
+     * @return the 64-bit fingerprint
+     */
+    public long fingerprint(NormalizedText text) {
+        Arrays.fill(weights, 0);
+
+        int length = text.length();
+        if (length < SHINGLE) {
+            long shingle = 0;
+            for (int i = 0; i < length; i++) {
+                shingle = (shingle << 16) | text.charAt(i);
+            }
+            add(mix(shingle));
+        } else {
+            for (int i = 0; i + SHINGLE <= length; i++) {
+                long shingle = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+                add(mix(shingle));
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the number of bits two fingerprints differ in.
+     *
+     * @param a the first fingerprint
+     * @param b the second fingerprint
+     *
+     * @return the Hamming distance, from {@code 0} for identical texts to {@code 64}
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private void add(long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += (int) ((hash >>> bit) & 1) * 2 - 1;
+        }
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
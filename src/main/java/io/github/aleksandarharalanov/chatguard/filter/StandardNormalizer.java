@@ -0,0 +1,183 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import java.text.Normalizer;
+
+/**
+ * Default {@link TextNormalizer} folding the common ways players disguise filtered words.
+ * <p>
+ * In a single pass over the text, without creating intermediate strings, this normalizer:
+ * <ul>
+ * <li>lowercases letters and strips accents ({@code É} becomes {@code e});</li>
+ * <li>maps leetspeak digits and symbols to letters ({@code f4ck}, {@code $h!t}), leaving numbers that touch no
+ * letter alone ({@code 455});</li>
+ * <li>removes {@code §} color codes and zero-width or other invisible formatting characters;</li>
+ * <li>drops separators joining a lone letter to another ({@code f.u.c.k}, {@code f-u_c*k}) and turns any other run
+ * of punctuation into a space, so {@code stupid,ass} stays two words;</li>
+ * <li>collapses runs of whitespace into a single space.</li>
+ * </ul>
+ * Repeated letters ({@code fuuuck}) are left in place here and folded by the {@link FilterEngine} scan instead, so
+ * entries that legitimately double a letter still match.
+ * <p>
+ * All per-character decisions come from a lookup table computed once when the class is loaded.
+ */
+public final class StandardNormalizer implements TextNormalizer {
+
+    public static final StandardNormalizer INSTANCE = new StandardNormalizer();
+
+    private static final char COLOR_CODE = '\u00A7';
+    private static final char DROP = '\u0000';
+    private static final char SPACE = ' ';
+    private static final char SEPARATOR = '\uFFFE';
+    private static final char LEET_I = '\uFFFF';
+    private static final char[] TABLE = buildTable();
+
+    private StandardNormalizer() {
+    }
+
+    @Override
+    public void normalize(CharSequence text, NormalizedText out) {
+        out.reset();
+        int length = text.length();
+        boolean space = true;
+        int digitsEnd = 0;
+        boolean foldDigits = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            char folded;
+
+            if (c == COLOR_CODE) {
+                i++;
+                continue;
+            } else if (c < TABLE.length) {
+                folded = TABLE[c];
+            } else if (Character.getType(c) == Character.FORMAT) {
+                folded = DROP;
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                folded = SPACE;
+            } else {
+                folded = Character.toLowerCase(c);
+            }
+
+            if (folded == LEET_I) {
+                folded = i + 1 < length && Character.isLetterOrDigit(text.charAt(i + 1)) ? 'i' : DROP;
+            } else if (folded == SEPARATOR) {
+                int end = skipSeparators(text, i, 1);
+                folded = isJoining(text, i - 1, end) ? DROP : SPACE;
+                i = end - 1;
+            } else if (c >= '0' && c <= '9') {
+                if (i >= digitsEnd) {
+                    digitsEnd = i;
+                    while (digitsEnd < length && text.charAt(digitsEnd) >= '0' && text.charAt(digitsEnd) <= '9') {
+                        digitsEnd++;
+                    }
+                    foldDigits = isLetter(text, skipSeparators(text, i - 1, -1))
+                            || isLetter(text, skipSeparators(text, digitsEnd, 1));
+                }
+                if (!foldDigits) {
+                    folded = c;
+                }
+            }
+
+            if (folded == DROP) {
+                continue;
+            }
+            if (folded == SPACE) {
+                if (!space) {
+                    out.append(SPACE, i);
+                    space = true;
+                }
+                continue;
+            }
+
+            out.append(folded, i);
+            space = false;
+        }
+
+        if (space && out.length() > 0) {
+            out.truncate(out.length() - 1);
+        }
+    }
+
+    /**
+     * Checks if a run of separators joins a lone letter to another, as in {@code f.u.c.k} or {@code f*ck}.
+     *
+     * @param text  the original text
+     * @param left  the index just before the run
+     * @param right the index just after the run
+     *
+     * @return {@code true} if the run should be dropped, otherwise {@code false}
+     */
+    private static boolean isJoining(CharSequence text, int left, int right) {
+        if (!isLetter(text, left) || !isLetter(text, right)) {
+            return false;
+        }
+        return !isLetter(text, left - 1) || !isLetter(text, right + 1);
+    }
+
+    private static int skipSeparators(CharSequence text, int index, int step) {
+        while (index >= 0 && index < text.length() && text.charAt(index) < TABLE.length
+                && TABLE[text.charAt(index)] == SEPARATOR) {
+            index += step;
+        }
+        return index;
+    }
+
+    /**
+     * Checks if the character at an index folds into a letter, counting leetspeak digits and symbols.
+     *
+     * @param text  the original text
+     * @param index the index, possibly out of range
+     *
+     * @return {@code true} if the index is in range and holds a letter, otherwise {@code false}
+     */
+    private static boolean isLetter(CharSequence text, int index) {
+        if (index < 0 || index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        if (c >= TABLE.length) {
+            return Character.isLetter(c);
+        }
+        return Character.isLetter(TABLE[c]) || TABLE[c] == LEET_I;
+    }
+
+    /**
+     * Builds the fold table for the Basic Latin, Latin-1 Supplement and Latin Extended-A/B blocks.
+     *
+     * @return the fold table, indexed by character
+     */
+    private static char[] buildTable() {
+        char[] table = new char[0x250];
+
+        for (char c = 0; c < table.length; c++) {
+            if (Character.isLetter(c)) {
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                char base = Character.toLowerCase(decomposed.charAt(0));
+                table[c] = base < 0x80 && Character.isLetter(base) ? base : Character.toLowerCase(c);
+            } else if (Character.isDigit(c)) {
+                table[c] = c;
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                table[c] = SPACE;
+            } else if (Character.isISOControl(c) || Character.getType(c) == Character.FORMAT) {
+                table[c] = DROP;
+            } else {
+                table[c] = SEPARATOR;
+            }
+        }
+
+        table['0'] = 'o';
+        table['1'] = 'i';
+        table['3'] = 'e';
+        table['4'] = 'a';
+        table['5'] = 's';
+        table['7'] = 't';
+        table['8'] = 'b';
+        table['9'] = 'g';
+        table['@'] = 'a';
+        table['$'] = 's';
+        table['!'] = LEET_I;
+        table['|'] = LEET_I;
+        return table;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+/**
+ * Normalization stage applied to text before it reaches the {@link FilterEngine}.
+ * <p>
+ * A normalizer folds the many ways of writing the same word into one canonical form, writing the result into a
+ * reusable {@link NormalizedText} buffer along with the position of every normalized character in the original text.
+ * The same normalizer is applied to the filter entries when the engine is compiled, so entries and messages always
+ * meet in the same alphabet.
+ */
+public interface TextNormalizer {
+
+    /**
+     * Normalizes the text into the given buffer.
+     * <p>
+     * The buffer is reset before writing. Implementations must emit at most one normalized character per original
+     * character and record its original index with {@link NormalizedText#append(char, int)}.
+     *
+     * @param text the text to normalize
+     * @param out  the buffer receiving the normalized text
+     */
+    void normalize(CharSequence text, NormalizedText out);
+}
@@ -0,0 +1,64 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.util.AccessUtil.hasPermission;
+
+public class BypassHandler {
+
+    private static final ConcurrentHashMap<String, Decision> cache = new ConcurrentHashMap<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    public static boolean canBypass(Player player) {
+        long now = System.currentTimeMillis();
+        Decision decision = cache.get(player.getName());
+        if (decision != null && now < decision.expiresAt) {
+            hits.increment();
+            return decision.bypass;
+        }
+
+        misses.increment();
+        boolean bypass = hasPermission(player, "chatguard.bypass");
+        long ttl = getSettings().getBypassCacheTtl();
+        if (ttl > 0) {
+            cache.put(player.getName(), new Decision(bypass, now + ttl));
+        }
+        return bypass;
+    }
+
+    public static void invalidate(Player player) {
+        cache.remove(player.getName());
+    }
+
+    public static void invalidateAll() {
+        cache.clear();
+    }
+
+    public static int getSize() {
+        return cache.size();
+    }
+
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    private static final class Decision {
+
+        private final boolean bypass;
+        private final long expiresAt;
+
+        private Decision(boolean bypass, long expiresAt) {
+            this.bypass = bypass;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
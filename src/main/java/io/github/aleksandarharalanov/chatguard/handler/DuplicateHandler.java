@@ -0,0 +1,63 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import io.github.aleksandarharalanov.chatguard.filter.SimHash;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DuplicateHandler {
+
+    private static final ConcurrentHashMap<String, History> histories = new ConcurrentHashMap<>();
+
+    public static int recordMessage(Player player, long fingerprint, Settings settings) {
+        History history = histories.get(player.getName());
+        if (history == null || history.capacity() != settings.getDuplicateHistory()) {
+            history = new History(settings.getDuplicateHistory());
+            histories.put(player.getName(), history);
+        }
+        return history.record(fingerprint, System.currentTimeMillis(), settings.getDuplicateWindow(),
+                settings.getDuplicateDistance());
+    }
+
+    public static void forgetMessages(Player player) {
+        histories.remove(player.getName());
+    }
+
+    public static void resetDuplicates() {
+        histories.clear();
+    }
+
+    private static final class History {
+
+        private final long[] fingerprints;
+        private final long[] times;
+        private int next;
+        private int repeats;
+
+        private History(int capacity) {
+            this.fingerprints = new long[capacity];
+            this.times = new long[capacity];
+        }
+
+        private int capacity() {
+            return fingerprints.length;
+        }
+
+        private synchronized int record(long fingerprint, long now, long window, int distance) {
+            boolean duplicate = false;
+            for (int i = 0; i < fingerprints.length; i++) {
+                if (times[i] != 0 && now - times[i] <= window
+                        && SimHash.distance(fingerprints[i], fingerprint) <= distance) {
+                    duplicate = true;
+                    break;
+                }
+            }
+
+            fingerprints[next] = fingerprint;
+            times[next] = now;
+            next = (next + 1) % fingerprints.length;
+            repeats = duplicate ? repeats + 1 : 0;
+            return repeats;
+        }
+    }
+}
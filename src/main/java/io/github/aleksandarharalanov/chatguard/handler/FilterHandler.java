@@ -1,23 +1,228 @@
 package io.github.aleksandarharalanov.chatguard.handler;
 
+import io.github.aleksandarharalanov.chatguard.filter.FilterCache;
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterMatches;
+import io.github.aleksandarharalanov.chatguard.filter.FilterPattern;
+import io.github.aleksandarharalanov.chatguard.filter.FilterSnapshot;
+import io.github.aleksandarharalanov.chatguard.filter.MatchMode;
+import io.github.aleksandarharalanov.chatguard.filter.StandardNormalizer;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.github.aleksandarharalanov.chatguard.ChatGuard.getConfig;
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getInstance;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logWarning;
 
 public class FilterHandler {
 
-    private static ArrayList<String> filter = (ArrayList<String>) getConfig().getStringList(
-            "chatguard.filter", Collections.singletonList("fuck")
+    private static final String CACHE_FILE = "filter.bin";
+    private static final long CACHE_SAVE_DELAY_TICKS = 100L;
+
+    private static final Object lock = new Object();
+    private static final Set<String> entries = new LinkedHashSet<>(readFilter());
+    private static long generation = 1;
+    private static volatile long cachedVersion;
+
+    private static final AtomicReference<FilterSnapshot> filter = new AtomicReference<>(
+            logRejected(load(1, entries, readProfiles(), readAllowlist(), getSettings().getDefaultMode()))
     );
+    private static final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private static final AtomicBoolean cacheSavePending = new AtomicBoolean();
+    private static final ThreadLocal<FilterMatches> matches = ThreadLocal.withInitial(FilterMatches::new);
 
-    public static ArrayList<String> getFilter() {
-        return filter;
+    public static FilterSnapshot getFilter() {
+        return filter.get();
+    }
+
+    public static FilterMatches getMatches() {
+        return matches.get();
     }
 
     public static void resetFilter() {
-        filter = (ArrayList<String>) getConfig().getStringList(
-                "chatguard.filter", Collections.singletonList("fuck")
-        );
+        List<String> copy = readFilter();
+        long version;
+        synchronized (lock) {
+            entries.clear();
+            entries.addAll(copy);
+            version = ++generation;
+        }
+
+        publish(logRejected(load(version, copy, readProfiles(), readAllowlist(), getSettings().getDefaultMode())));
+    }
+
+    public static boolean addEntry(String entry) {
+        FilterPattern.parse(entry);
+        synchronized (lock) {
+            if (!entries.add(entry)) {
+                return false;
+            }
+            generation++;
+        }
+
+        scheduleRebuild();
+        return true;
+    }
+
+    public static boolean removeEntry(String entry) {
+        synchronized (lock) {
+            if (!entries.remove(entry)) {
+                return false;
+            }
+            generation++;
+        }
+
+        scheduleRebuild();
+        return true;
+    }
+
+    public static int addEntries(Collection<String> batch) {
+        int added = 0;
+        synchronized (lock) {
+            for (String entry : batch) {
+                if (entries.add(entry)) {
+                    added++;
+                }
+            }
+            if (added == 0) {
+                return 0;
+            }
+            generation++;
+        }
+
+        rebuild();
+        return added;
+    }
+
+    public static List<String> getEntries() {
+        synchronized (lock) {
+            return new ArrayList<>(entries);
+        }
+    }
+
+    public static void persistFilter() {
+        getConfig().setProperty("chatguard.filter", getEntries());
+    }
+
+    public static synchronized void saveFilterCache() {
+        FilterSnapshot snapshot = filter.get();
+        if (snapshot.getVersion() == cachedVersion) {
+            return;
+        }
+
+        File cache = new File(getInstance().getDataFolder(), CACHE_FILE);
+        byte[] key = FilterCache.key(FilterSnapshot.layers(snapshot.getEntries(), snapshot.getProfiles()),
+                snapshot.getAllowlist(), snapshot.getMode(), StandardNormalizer.INSTANCE);
+        try {
+            FilterCache.save(cache, key, snapshot.getEngine());
+            cachedVersion = snapshot.getVersion();
+        } catch (IOException e) {
+            logWarning(String.format("[ChatGuard] Failed to save compiled filter '%s': %s", CACHE_FILE, e.getMessage()));
+        }
+    }
+
+    private static void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            getInstance().getServer().getScheduler().scheduleAsyncDelayedTask(getInstance(), FilterHandler::rebuild);
+        }
+    }
+
+    private static void rebuild() {
+        rebuildScheduled.set(false);
+
+        List<String> copy;
+        long version;
+        synchronized (lock) {
+            copy = new ArrayList<>(entries);
+            version = generation;
+        }
+
+        FilterSnapshot current = filter.get();
+        publish(FilterSnapshot.of(version, copy, current.getProfiles(), current.getAllowlist(), current.getMode()));
+
+        getConfig().setProperty("chatguard.filter", copy);
+        getConfig().requestSave();
+        requestCacheSave();
+    }
+
+    private static void requestCacheSave() {
+        if (cacheSavePending.compareAndSet(false, true)) {
+            getInstance().getServer().getScheduler().scheduleAsyncDelayedTask(getInstance(), () -> {
+                cacheSavePending.set(false);
+                // Edits still arriving request another save once their rebuild is published.
+                if (!rebuildScheduled.get()) {
+                    saveFilterCache();
+                }
+            }, CACHE_SAVE_DELAY_TICKS);
+        }
+    }
+
+    private static FilterSnapshot load(long version, Collection<String> filter, Map<String, List<String>> profiles,
+                                       List<String> allowlist, MatchMode mode) {
+        File cache = new File(getInstance().getDataFolder(), CACHE_FILE);
+        byte[] key = FilterCache.key(FilterSnapshot.layers(filter, profiles), allowlist, mode, StandardNormalizer.INSTANCE);
+        try {
+            FilterEngine engine = FilterCache.load(cache, key, StandardNormalizer.INSTANCE);
+            if (engine != null) {
+                cachedVersion = version;
+                return FilterSnapshot.of(version, filter, profiles, allowlist, mode, engine);
+            }
+        } catch (IOException e) {
+            logWarning(String.format("[ChatGuard] Compiled filter '%s' is unreadable, rebuilding it: %s",
+                    CACHE_FILE, e.getMessage()));
+        }
+
+        return FilterSnapshot.of(version, filter, profiles, allowlist, mode);
+    }
+
+    private static void publish(FilterSnapshot next) {
+        FilterSnapshot current;
+        do {
+            current = filter.get();
+            if (current.getVersion() >= next.getVersion()) {
+                return;
+            }
+        } while (!filter.compareAndSet(current, next));
+    }
+
+    private static FilterSnapshot logRejected(FilterSnapshot snapshot) {
+        for (String rejected : snapshot.getEngine().getRejected()) {
+            logWarning(String.format("[ChatGuard] Skipping invalid filter entry: %s", rejected));
+        }
+        return snapshot;
+    }
+
+    private static List<String> readFilter() {
+        return getConfig().getStringList("chatguard.filter", Collections.singletonList("fuck"));
+    }
+
+    private static Map<String, List<String>> readProfiles() {
+        Map<String, List<String>> profiles = new LinkedHashMap<>();
+        for (String name : Settings.readProfileNames(getConfig())) {
+            if (profiles.size() == FilterEngine.MAX_PROFILES - 1) {
+                logWarning(String.format("[ChatGuard] Skipping filter profile '%s': at most %d profiles are supported.",
+                        name, FilterEngine.MAX_PROFILES - 1));
+                continue;
+            }
+            profiles.put(name, getConfig().getStringList("chatguard.profiles." + name + ".filter",
+                    Collections.<String>emptyList()));
+        }
+        return profiles;
+    }
+
+    private static List<String> readAllowlist() {
+        return getConfig().getStringList("chatguard.allowlist", Collections.<String>emptyList());
     }
 }
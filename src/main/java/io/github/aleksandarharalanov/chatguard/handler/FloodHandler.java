@@ -0,0 +1,72 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+public class FloodHandler {
+
+    public static final int ALLOWED = 0;
+    public static final int STARTED = 1;
+    public static final int CONTINUED = 2;
+
+    private static final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public static int tryAcquire(Player player, Settings settings) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(player.getName());
+        if (bucket == null) {
+            Bucket created = new Bucket(now);
+            bucket = buckets.putIfAbsent(player.getName(), created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+
+        long interval = settings.getFloodInterval();
+        return bucket.tryAcquire(now, interval, interval * settings.getFloodMessages());
+    }
+
+    public static void forget(Player player) {
+        buckets.remove(player.getName());
+    }
+
+    public static void resetFlood() {
+        buckets.clear();
+    }
+
+    private static final class Bucket {
+
+        private static final AtomicLongFieldUpdater<Bucket> THEORETICAL_ARRIVAL =
+                AtomicLongFieldUpdater.newUpdater(Bucket.class, "theoreticalArrival");
+        private static final AtomicIntegerFieldUpdater<Bucket> FLOODING =
+                AtomicIntegerFieldUpdater.newUpdater(Bucket.class, "flooding");
+
+        private volatile long theoreticalArrival;
+        private volatile int flooding;
+
+        private Bucket(long now) {
+            this.theoreticalArrival = now;
+        }
+
+        private int tryAcquire(long now, long interval, long window) {
+            // GCRA: a message is allowed while the theoretical arrival time of the next one stays within the window,
+            // which is a token bucket refilled every interval, kept in a single CAS-updated timestamp.
+            while (true) {
+                long arrival = theoreticalArrival;
+                long next = (arrival - now > 0 ? arrival : now) + interval;
+                if (next - now > window) {
+                    return FLOODING.compareAndSet(this, 0, 1) ? STARTED : CONTINUED;
+                }
+                if (THEORETICAL_ARRIVAL.compareAndSet(this, arrival, next)) {
+                    if (flooding != 0) {
+                        flooding = 0;
+                    }
+                    return ALLOWED;
+                }
+            }
+        }
+    }
+}
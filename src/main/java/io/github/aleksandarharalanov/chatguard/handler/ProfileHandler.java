@@ -0,0 +1,84 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import io.github.aleksandarharalanov.chatguard.filter.FilterSnapshot;
+import org.bukkit.entity.Player;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.util.AccessUtil.hasExplicitPermission;
+
+public class ProfileHandler {
+
+    public static final long DEFAULT_PROFILE = 1L;
+
+    private static final ConcurrentHashMap<String, Assignment> cache = new ConcurrentHashMap<>();
+
+    public static long getProfiles(Player player) {
+        FilterSnapshot filter = getFilter();
+        if (filter.getProfiles().isEmpty()) {
+            return DEFAULT_PROFILE;
+        }
+
+        long now = System.currentTimeMillis();
+        String world = player.getWorld().getName();
+        Assignment assignment = cache.get(player.getName());
+        if (assignment != null && assignment.version == filter.getVersion() && assignment.world.equals(world)
+                && now < assignment.expiresAt) {
+            return assignment.profiles;
+        }
+
+        Settings settings = getSettings();
+        long profiles = resolve(player, world, filter, settings);
+        long ttl = settings.getProfileCacheTtl();
+        if (ttl > 0) {
+            cache.put(player.getName(), new Assignment(profiles, world, filter.getVersion(), now + ttl));
+        }
+        return profiles;
+    }
+
+    public static void forgetProfiles(Player player) {
+        cache.remove(player.getName());
+    }
+
+    public static void resetProfiles() {
+        cache.clear();
+    }
+
+    private static long resolve(Player player, String world, FilterSnapshot filter, Settings settings) {
+        Set<String> worldProfiles = settings.getWorldProfiles(world);
+        long profiles = 0;
+        boolean assigned = false;
+        boolean inheriting = false;
+        for (String name : filter.getProfiles().keySet()) {
+            if (worldProfiles.contains(name) || hasExplicitPermission(player, "chatguard.profile." + name)) {
+                profiles |= filter.getProfileBit(name);
+                assigned = true;
+                inheriting |= settings.isInheriting(name);
+            }
+        }
+
+        // The filter list applies unless every assigned profile replaces it.
+        if (!assigned || inheriting) {
+            profiles |= DEFAULT_PROFILE;
+        }
+        return profiles;
+    }
+
+    private static final class Assignment {
+
+        private final long profiles;
+        private final String world;
+        private final long version;
+        private final long expiresAt;
+
+        private Assignment(long profiles, String world, long version, long expiresAt) {
+            this.profiles = profiles;
+            this.world = world;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getConfig;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.invalidateAll;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.resetFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.ProfileHandler.resetProfiles;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.resetSettings;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logInfo;
+
+public class ReloadHandler {
+
+    private static final Object lock = new Object();
+
+    public static boolean reloadConfig() {
+        synchronized (lock) {
+            if (!getConfig().reload()) {
+                return false;
+            }
+
+            resetSettings();
+            resetFilter();
+            invalidateAll();
+            resetProfiles();
+            return true;
+        }
+    }
+
+    public static void onConfigChanged() {
+        if (!getConfig().isModified()) {
+            return;
+        }
+
+        if (reloadConfig()) {
+            logInfo(String.format("[ChatGuard] Config '%s' changed on disk and was reloaded.", getConfig().getConfig().getName()));
+        }
+    }
+}
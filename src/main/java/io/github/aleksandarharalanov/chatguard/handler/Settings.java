@@ -0,0 +1,390 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import io.github.aleksandarharalanov.chatguard.filter.MatchMode;
+import io.github.aleksandarharalanov.chatguard.util.ConfigUtil;
+import io.github.aleksandarharalanov.chatguard.violation.StrikePolicy;
+import io.github.aleksandarharalanov.chatguard.violation.StrikeThreshold;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logWarning;
+
+/**
+ * Immutable, typed view of the ChatGuard configuration.
+ * <p>
+ * Every value is read from the configuration once, when the snapshot is built, so code on the chat path reads plain
+ * fields instead of walking the configuration node tree by path on every message. A new snapshot is built whenever
+ * the configuration is loaded, reloaded or changed by a command; see {@link SettingsHandler}.
+ */
+public final class Settings {
+
+    private static final List<String> DEFAULT_COMMANDS = Arrays.asList("me", "msg", "tell", "w", "whisper", "r", "reply");
+
+    private final boolean toggle;
+    private final long bypassCacheTtl;
+    private final int reportQueueSize;
+    private final boolean history;
+    private final boolean watch;
+    private final MatchMode defaultMode;
+    private final boolean censor;
+    private final char censorCharacter;
+    private final Set<String> scannedCommands;
+    private final boolean scanSigns;
+    private final boolean scanNames;
+    private final boolean flood;
+    private final int floodMessages;
+    private final int floodSeconds;
+    private final long floodInterval;
+    private final boolean duplicates;
+    private final int duplicateHistory;
+    private final long duplicateWindow;
+    private final int duplicateDistance;
+    private final int duplicateMinLength;
+    private final boolean strikes;
+    private final StrikePolicy strikePolicy;
+    private final Map<String, Set<String>> worldProfiles;
+    private final Set<String> exclusiveProfiles;
+    private final long profileCacheTtl;
+
+    /**
+     * Reads a new settings snapshot from the given configuration.
+     *
+     * @param config the loaded configuration
+     */
+    Settings(ConfigUtil config) {
+        this.toggle = config.getBoolean("chatguard.toggle", true);
+        this.bypassCacheTtl = Math.max(0, config.getInt("chatguard.bypass-cache-ttl", 60)) * 1000L;
+        this.reportQueueSize = Math.max(1, config.getInt("chatguard.report-queue-size", 1024));
+        this.history = config.getBoolean("chatguard.history", true);
+        this.watch = config.getBoolean("chatguard.watch", false);
+        this.defaultMode = MatchMode.parse(config.getString("chatguard.default-mode"), MatchMode.SUBSTRING);
+        this.censor = "censor".equalsIgnoreCase(config.getString("chatguard.action", "block"));
+        String character = config.getString("chatguard.censor-character", "*");
+        this.censorCharacter = character == null || character.isEmpty() ? '*' : character.charAt(0);
+        Set<String> commands = new HashSet<>();
+        for (String command : config.getStringList("chatguard.scan.commands", DEFAULT_COMMANDS)) {
+            commands.add(command.toLowerCase(Locale.ROOT));
+        }
+        this.scannedCommands = Collections.unmodifiableSet(commands);
+        this.scanSigns = config.getBoolean("chatguard.scan.signs", true);
+        this.scanNames = config.getBoolean("chatguard.scan.names", true);
+        this.flood = config.getBoolean("chatguard.flood.enabled", false);
+        this.floodMessages = Math.max(1, config.getInt("chatguard.flood.messages", 5));
+        this.floodSeconds = Math.max(1, config.getInt("chatguard.flood.seconds", 5));
+        this.floodInterval = TimeUnit.SECONDS.toNanos(floodSeconds) / floodMessages;
+        this.duplicates = config.getBoolean("chatguard.duplicates.enabled", false);
+        this.duplicateHistory = Math.max(1, Math.min(64, config.getInt("chatguard.duplicates.history", 8)));
+        this.duplicateWindow = Math.max(1, config.getInt("chatguard.duplicates.seconds", 60)) * 1000L;
+        this.duplicateDistance = Math.max(0, Math.min(64, config.getInt("chatguard.duplicates.max-distance", 3)));
+        this.duplicateMinLength = Math.max(1, config.getInt("chatguard.duplicates.min-length", 8));
+        this.strikes = config.getBoolean("chatguard.strikes.enabled", false);
+        double[] weights = new double[ViolationType.values().length];
+        for (ViolationType type : ViolationType.values()) {
+            String path = "chatguard.strikes.weights." + type.name().toLowerCase(Locale.ROOT);
+            weights[type.ordinal()] = Math.max(0, config.getDouble(path, type == ViolationType.WORD ? 1 : 0.5));
+        }
+        List<StrikeThreshold> thresholds = new ArrayList<>();
+        for (String threshold : config.getStringList("chatguard.strikes.thresholds", Collections.<String>emptyList())) {
+            try {
+                thresholds.add(StrikeThreshold.parse(threshold));
+            } catch (IllegalArgumentException e) {
+                logWarning(String.format("[ChatGuard] Skipping invalid strike threshold '%s': %s", threshold, e.getMessage()));
+            }
+        }
+        long halfLife = Math.max(1, config.getInt("chatguard.strikes.half-life", 600)) * 1000L;
+        this.strikePolicy = new StrikePolicy(halfLife, weights, thresholds);
+        Map<String, Set<String>> worlds = new HashMap<>();
+        Set<String> exclusive = new HashSet<>();
+        for (String profile : readProfileNames(config)) {
+            String path = "chatguard.profiles." + profile;
+            for (String world : config.getStringList(path + ".worlds", Collections.<String>emptyList())) {
+                worlds.computeIfAbsent(world.toLowerCase(Locale.ROOT), key -> new HashSet<>()).add(profile);
+            }
+            if (!config.getBoolean(path + ".inherit", true)) {
+                exclusive.add(profile);
+            }
+        }
+        this.worldProfiles = Collections.unmodifiableMap(worlds);
+        this.exclusiveProfiles = Collections.unmodifiableSet(exclusive);
+        this.profileCacheTtl = Math.max(0, config.getInt("chatguard.profiles.cache-ttl", 60)) * 1000L;
+    }
+
+    /**
+     * Lists the filter profiles defined in the configuration.
+     * <p>
+     * Profiles are the sections under {@code chatguard.profiles}; plain values next to them, such as
+     * {@code cache-ttl}, are settings rather than profiles.
+     *
+     * @param config the loaded configuration
+     *
+     * @return the profile names, in configuration order
+     */
+    static List<String> readProfileNames(ConfigUtil config) {
+        List<String> names = new ArrayList<>();
+        List<String> keys = config.getKeys("chatguard.profiles");
+        if (keys == null) {
+            return names;
+        }
+
+        for (String key : keys) {
+            if (config.getProperty("chatguard.profiles." + key) instanceof Map) {
+                names.add(key);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Checks if the chat filter is enabled.
+     *
+     * @return {@code true} if messages should be filtered, otherwise {@code false}
+     */
+    public boolean isToggle() {
+        return toggle;
+    }
+
+    /**
+     * Returns how long a player's bypass permission check is cached.
+     *
+     * @return the cache lifetime in milliseconds; {@code 0} disables caching
+     */
+    public long getBypassCacheTtl() {
+        return bypassCacheTtl;
+    }
+
+    /**
+     * Returns how many violations may wait to be reported before new ones are dropped.
+     * <p>
+     * Only read when the plugin is enabled.
+     *
+     * @return the capacity of the violation queue
+     */
+    public int getReportQueueSize() {
+        return reportQueueSize;
+    }
+
+    /**
+     * Checks if violations are recorded to the on-disk history.
+     * <p>
+     * Only read when the plugin is enabled.
+     *
+     * @return {@code true} if the history is enabled, otherwise {@code false}
+     */
+    public boolean isHistory() {
+        return history;
+    }
+
+    /**
+     * Checks if the configuration file is watched and reloaded as soon as it changes on disk.
+     * <p>
+     * Only read when the plugin is enabled.
+     *
+     * @return {@code true} if the configuration is watched, otherwise {@code false}
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Returns the match mode applied to filter entry edges not marked with {@code *}, {@code <} or {@code >}.
+     *
+     * @return the default match mode
+     */
+    public MatchMode getDefaultMode() {
+        return defaultMode;
+    }
+
+    /**
+     * Checks if filtered words are censored instead of the whole message being blocked.
+     *
+     * @return {@code true} if the action is {@code censor}, {@code false} if it is {@code block}
+     */
+    public boolean isCensor() {
+        return censor;
+    }
+
+    /**
+     * Returns the character written over filtered words in censor mode.
+     *
+     * @return the censor character
+     */
+    public char getCensorCharacter() {
+        return censorCharacter;
+    }
+
+    /**
+     * Checks if a command is scanned by the filter.
+     *
+     * @param label the command label without the leading slash, in lower case
+     *
+     * @return {@code true} if the command's arguments should be filtered, otherwise {@code false}
+     */
+    public boolean isScannedCommand(String label) {
+        return scannedCommands.contains(label);
+    }
+
+    /**
+     * Checks if sign text is scanned by the filter.
+     *
+     * @return {@code true} if signs should be filtered, otherwise {@code false}
+     */
+    public boolean isScanSigns() {
+        return scanSigns;
+    }
+
+    /**
+     * Checks if player names are scanned by the filter when players join.
+     *
+     * @return {@code true} if names should be filtered, otherwise {@code false}
+     */
+    public boolean isScanNames() {
+        return scanNames;
+    }
+
+    /**
+     * Checks if players sending messages too quickly are blocked.
+     *
+     * @return {@code true} if the flood limit is enabled, otherwise {@code false}
+     */
+    public boolean isFlood() {
+        return flood;
+    }
+
+    /**
+     * Returns how many messages a player may send within {@link #getFloodSeconds()} seconds.
+     *
+     * @return the burst size of the flood limit
+     */
+    public int getFloodMessages() {
+        return floodMessages;
+    }
+
+    /**
+     * Returns the window, in seconds, the flood limit's message count applies to.
+     *
+     * @return the window of the flood limit in seconds
+     */
+    public int getFloodSeconds() {
+        return floodSeconds;
+    }
+
+    /**
+     * Returns the sustained interval between messages allowed by the flood limit.
+     *
+     * @return the interval in nanoseconds
+     */
+    public long getFloodInterval() {
+        return floodInterval;
+    }
+
+    /**
+     * Checks if repeated and near-duplicate messages are blocked.
+     *
+     * @return {@code true} if duplicate detection is enabled, otherwise {@code false}
+     */
+    public boolean isDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns how many recent message fingerprints are kept per player.
+     * <p>
+     * Each kept message costs 16 bytes, so a player's history takes a fixed {@code 16 * n} bytes plus array headers.
+     *
+     * @return the number of remembered messages, between 1 and 64
+     */
+    public int getDuplicateHistory() {
+        return duplicateHistory;
+    }
+
+    /**
+     * Returns how long a message is remembered for duplicate detection.
+     *
+     * @return the window in milliseconds
+     */
+    public long getDuplicateWindow() {
+        return duplicateWindow;
+    }
+
+    /**
+     * Returns the largest fingerprint distance at which two messages still count as duplicates.
+     *
+     * @return the maximum Hamming distance, between 0 (exact repeats only) and 64
+     */
+    public int getDuplicateDistance() {
+        return duplicateDistance;
+    }
+
+    /**
+     * Returns the normalized length below which messages are never treated as duplicates.
+     *
+     * @return the minimum message length
+     */
+    public int getDuplicateMinLength() {
+        return duplicateMinLength;
+    }
+
+    /**
+     * Checks if violations add up to strikes that escalate into mutes, kicks or commands.
+     * <p>
+     * Only read when the plugin is enabled.
+     *
+     * @return {@code true} if strikes are enabled, otherwise {@code false}
+     */
+    public boolean isStrikes() {
+        return strikes;
+    }
+
+    /**
+     * Returns the weights, decay and thresholds strikes are scored with.
+     *
+     * @return the strike policy
+     */
+    public StrikePolicy getStrikePolicy() {
+        return strikePolicy;
+    }
+
+    /**
+     * Returns the filter profiles assigned to everyone in a world.
+     *
+     * @param world the world name, case-insensitive
+     *
+     * @return the names of the profiles; empty if none are assigned
+     */
+    public Set<String> getWorldProfiles(String world) {
+        Set<String> profiles = worldProfiles.get(world.toLowerCase(Locale.ROOT));
+        return profiles != null ? profiles : Collections.<String>emptySet();
+    }
+
+    /**
+     * Checks if a filter profile adds to the filter list rather than replacing it.
+     *
+     * @param profile the profile name
+     *
+     * @return {@code true} if the filter list still applies to players with this profile, otherwise {@code false}
+     */
+    public boolean isInheriting(String profile) {
+        return !exclusiveProfiles.contains(profile);
+    }
+
+    /**
+     * Returns how long a player's filter profiles are cached.
+     * <p>
+     * Profiles are also resolved again whenever the player changes worlds or the filter changes.
+     *
+     * @return the cache lifetime in milliseconds; {@code 0} disables caching
+     */
+    public long getProfileCacheTtl() {
+        return profileCacheTtl;
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getConfig;
+
+public class SettingsHandler {
+
+    private static volatile Settings settings = new Settings(getConfig());
+
+    public static Settings getSettings() {
+        return settings;
+    }
+
+    public static void resetSettings() {
+        settings = new Settings(getConfig());
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import io.github.aleksandarharalanov.chatguard.stats.LatencyHistogram;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StatsHandler {
+
+    private static final LatencyHistogram latency = new LatencyHistogram();
+    private static final LongAdder scanned = new LongAdder();
+    private static final LongAdder blocked = new LongAdder();
+    private static final LongAdder censored = new LongAdder();
+    private static final LongAdder bypassed = new LongAdder();
+    private static final LongAdder flooded = new LongAdder();
+    private static final LongAdder duplicates = new LongAdder();
+    private static final LongAdder muted = new LongAdder();
+    private static final ConcurrentHashMap<String, LongAdder> entryHits = new ConcurrentHashMap<>();
+    private static volatile long since = System.currentTimeMillis();
+
+    public static void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    public static void recordScanned() {
+        scanned.increment();
+    }
+
+    public static void recordBlocked() {
+        blocked.increment();
+    }
+
+    public static void recordCensored() {
+        censored.increment();
+    }
+
+    public static void recordBypassed() {
+        bypassed.increment();
+    }
+
+    public static void recordFlooded() {
+        flooded.increment();
+    }
+
+    public static void recordDuplicate() {
+        duplicates.increment();
+    }
+
+    public static void recordMuted() {
+        muted.increment();
+    }
+
+    public static void recordHit(String entry) {
+        entryHits.computeIfAbsent(entry, key -> new LongAdder()).increment();
+    }
+
+    public static LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public static long getScanned() {
+        return scanned.sum();
+    }
+
+    public static long getBlocked() {
+        return blocked.sum();
+    }
+
+    public static long getCensored() {
+        return censored.sum();
+    }
+
+    public static long getBypassed() {
+        return bypassed.sum();
+    }
+
+    public static long getFlooded() {
+        return flooded.sum();
+    }
+
+    public static long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public static long getMuted() {
+        return muted.sum();
+    }
+
+    public static long getSince() {
+        return since;
+    }
+
+    public static List<Map.Entry<String, Long>> getTopHits(int limit) {
+        List<Map.Entry<String, Long>> hits = new ArrayList<>(entryHits.size());
+        for (Map.Entry<String, LongAdder> entry : entryHits.entrySet()) {
+            hits.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum()));
+        }
+        hits.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    public static void resetStats() {
+        latency.reset();
+        scanned.reset();
+        blocked.reset();
+        censored.reset();
+        bypassed.reset();
+        flooded.reset();
+        duplicates.reset();
+        muted.reset();
+        entryHits.clear();
+        since = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.aleksandarharalanov.chatguard.handler;
+
+import io.github.aleksandarharalanov.chatguard.violation.StrikeThreshold;
+import io.github.aleksandarharalanov.chatguard.violation.StrikeTracker;
+import org.bukkit.Server;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getInstance;
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getStrikes;
+import static io.github.aleksandarharalanov.chatguard.util.ColorUtil.translate;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logInfo;
+
+public class StrikeHandler {
+
+    private static final String KICK_MESSAGE = translate("&cKicked for repeated chat violations.");
+
+    public static long getMuteRemaining(Player player) {
+        StrikeTracker strikes = getStrikes();
+        return strikes == null ? 0 : strikes.getMuteRemaining(player.getName(), System.currentTimeMillis());
+    }
+
+    public static void escalate(String name, StrikeThreshold threshold, double score) {
+        logInfo(String.format("[ChatGuard] %s reached %.1f strike(s): %s", name, score, threshold.getSource()));
+
+        Server server = getInstance().getServer();
+        server.getScheduler().scheduleSyncDelayedTask(getInstance(), () -> {
+            Player player = server.getPlayer(name);
+            switch (threshold.getAction()) {
+                case MUTE:
+                    if (player != null) {
+                        player.sendMessage(translate(String.format("&cYou have been muted for %ds for repeated violations.",
+                                threshold.getDuration() / 1000)));
+                    }
+                    break;
+                case KICK:
+                    if (player != null) {
+                        player.kickPlayer(KICK_MESSAGE);
+                    }
+                    break;
+                case COMMAND:
+                    server.dispatchCommand(new ConsoleCommandSender(server), threshold.getCommand(name));
+                    break;
+            }
+        });
+    }
+}
@@ -1,38 +1,127 @@
 package io.github.aleksandarharalanov.chatguard.listener;
 
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterMatches;
+import io.github.aleksandarharalanov.chatguard.filter.NormalizedText;
+import io.github.aleksandarharalanov.chatguard.filter.SimHash;
+import io.github.aleksandarharalanov.chatguard.handler.Settings;
+import io.github.aleksandarharalanov.chatguard.violation.Violation;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerChatEvent;
 import org.bukkit.event.player.PlayerListener;
 
-import static io.github.aleksandarharalanov.chatguard.ChatGuard.getConfig;
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getReporter;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.canBypass;
+import static io.github.aleksandarharalanov.chatguard.handler.DuplicateHandler.recordMessage;
 import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getFilter;
-import static io.github.aleksandarharalanov.chatguard.util.AccessUtil.hasPermission;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getMatches;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.ALLOWED;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.STARTED;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.tryAcquire;
+import static io.github.aleksandarharalanov.chatguard.handler.ProfileHandler.getProfiles;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBlocked;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBypassed;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordCensored;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordDuplicate;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordFlooded;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordHit;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordLatency;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordMuted;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordScanned;
+import static io.github.aleksandarharalanov.chatguard.handler.StrikeHandler.getMuteRemaining;
 import static io.github.aleksandarharalanov.chatguard.util.ColorUtil.translate;
-import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logWarning;
 
 public class PlayerChatListener extends PlayerListener {
 
+    private static final ThreadLocal<SimHash> FINGERPRINTS = ThreadLocal.withInitial(SimHash::new);
+    static final String FILTERED_MESSAGE = translate("&cYour message has been filtered from bad words.");
+    static final String CENSORED_MESSAGE = translate("&cBad words in your message have been censored.");
+    static final String LOGGED_MESSAGE = translate("&cThis has been logged to operators.");
+    static final String FLOOD_MESSAGE = translate("&cYou are sending messages too quickly.");
+    private static final String DUPLICATE_MESSAGE = translate("&cPlease don't repeat the same message.");
+    static final String MUTED_MESSAGE = "&cYou are muted for another %ds.";
+
     @Override
     public void onPlayerChat(PlayerChatEvent event) {
-        boolean toggle = getConfig().getBoolean("chatguard.toggle", true);
-        if (!toggle) {
+        if (!getSettings().isToggle()) {
             return;
         }
 
+        long start = System.nanoTime();
+        try {
+            filter(event);
+        } finally {
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    private static void filter(PlayerChatEvent event) {
         Player player = event.getPlayer();
-        if (hasPermission(player, "chatguard.bypass")) {
+        if (canBypass(player)) {
+            recordBypassed();
             return;
         }
 
-        String message = event.getMessage().toLowerCase();
-        for (String badWord : getFilter()) {
-            if (message.contains(badWord)) {
+        long muted = getMuteRemaining(player);
+        if (muted > 0) {
+            recordMuted();
+            event.setCancelled(true);
+            player.sendMessage(translate(String.format(MUTED_MESSAGE, (muted + 999) / 1000)));
+            return;
+        }
+
+        Settings settings = getSettings();
+        if (settings.isFlood()) {
+            int flood = tryAcquire(player, settings);
+            if (flood != ALLOWED) {
+                recordFlooded();
                 event.setCancelled(true);
-                player.sendMessage(translate("&cYour message has been filtered from bad words."));
-                player.sendMessage(translate("&cThis has been logged to operators."));
-                logWarning(String.format("[ChatGuard] %s: %s", player.getName(), badWord));
+                player.sendMessage(FLOOD_MESSAGE);
+                if (flood == STARTED) {
+                    getReporter().report(new Violation(player.getName(), ViolationType.FLOOD,
+                            String.format("over %d messages in %ds", settings.getFloodMessages(),
+                                    settings.getFloodSeconds()), System.currentTimeMillis()));
+                }
                 return;
             }
         }
+
+        recordScanned();
+        FilterEngine engine = getFilter().getEngine();
+        FilterMatches matches = getMatches();
+        if (engine.scan(event.getMessage(), matches, getProfiles(player))) {
+            for (int i = 0; i < matches.size(); i++) {
+                recordHit(engine.getEntry(matches.getEntry(i)));
+            }
+            String badWord = engine.getEntry(matches.getEntry(0));
+            if (settings.isCensor()) {
+                recordCensored();
+                event.setMessage(matches.censor(event.getMessage(), settings.getCensorCharacter()));
+                player.sendMessage(CENSORED_MESSAGE);
+            } else {
+                recordBlocked();
+                event.setCancelled(true);
+                player.sendMessage(FILTERED_MESSAGE);
+            }
+            player.sendMessage(LOGGED_MESSAGE);
+            getReporter().report(new Violation(player.getName(), ViolationType.WORD, badWord, System.currentTimeMillis()));
+            return;
+        }
+
+        NormalizedText text = matches.getText();
+        if (settings.isDuplicates() && text.length() >= settings.getDuplicateMinLength()) {
+            int repeats = recordMessage(player, FINGERPRINTS.get().fingerprint(text), settings);
+            if (repeats > 0) {
+                recordDuplicate();
+                event.setCancelled(true);
+                player.sendMessage(DUPLICATE_MESSAGE);
+                if (repeats == 1) {
+                    getReporter().report(new Violation(player.getName(), ViolationType.DUPLICATE,
+                            event.getMessage(), System.currentTimeMillis()));
+                }
+            }
+        }
     }
 }
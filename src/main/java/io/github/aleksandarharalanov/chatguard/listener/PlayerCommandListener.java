@@ -0,0 +1,140 @@
+package io.github.aleksandarharalanov.chatguard.listener;
+
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterMatches;
+import io.github.aleksandarharalanov.chatguard.handler.Settings;
+import io.github.aleksandarharalanov.chatguard.violation.Violation;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerListener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getReporter;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.canBypass;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getMatches;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.ALLOWED;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.STARTED;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.tryAcquire;
+import static io.github.aleksandarharalanov.chatguard.handler.ProfileHandler.getProfiles;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBlocked;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBypassed;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordCensored;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordFlooded;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordHit;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordMuted;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordScanned;
+import static io.github.aleksandarharalanov.chatguard.handler.StrikeHandler.getMuteRemaining;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.CENSORED_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.FILTERED_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.FLOOD_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.LOGGED_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.MUTED_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.util.ColorUtil.translate;
+
+public class PlayerCommandListener extends PlayerListener {
+
+    private static final Set<String> TARGETED_COMMANDS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("msg", "tell", "w", "whisper")));
+
+    @Override
+    public void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent event) {
+        Settings settings = getSettings();
+        if (!settings.isToggle() || event.isCancelled()) {
+            return;
+        }
+
+        String message = event.getMessage();
+        int space = message.indexOf(' ');
+        if (space == -1) {
+            return;
+        }
+        String label = message.substring(1, space).toLowerCase(Locale.ROOT);
+        if (!settings.isScannedCommand(label)) {
+            return;
+        }
+
+        // Only the text is filtered; the label and the whisper target are names, not chat.
+        int start = skipSpaces(message, space);
+        if (TARGETED_COMMANDS.contains(label)) {
+            start = skipSpaces(message, message.indexOf(' ', start));
+        }
+        if (start == -1 || start == message.length()) {
+            return;
+        }
+        String prefix = message.substring(0, start);
+        String text = message.substring(start);
+
+        Player player = event.getPlayer();
+        if (canBypass(player)) {
+            recordBypassed();
+            return;
+        }
+
+        long muted = getMuteRemaining(player);
+        if (muted > 0) {
+            recordMuted();
+            event.setCancelled(true);
+            player.sendMessage(translate(String.format(MUTED_MESSAGE, (muted + 999) / 1000)));
+            return;
+        }
+
+        // Scanned commands are chat too, so they draw on the same flood budget as chat messages.
+        if (settings.isFlood()) {
+            int flood = tryAcquire(player, settings);
+            if (flood != ALLOWED) {
+                recordFlooded();
+                event.setCancelled(true);
+                player.sendMessage(FLOOD_MESSAGE);
+                if (flood == STARTED) {
+                    getReporter().report(new Violation(player.getName(), ViolationType.FLOOD,
+                            String.format("over %d messages in %ds", settings.getFloodMessages(),
+                                    settings.getFloodSeconds()), System.currentTimeMillis()));
+                }
+                return;
+            }
+        }
+
+        recordScanned();
+        FilterEngine engine = getFilter().getEngine();
+        FilterMatches matches = getMatches();
+        if (!engine.scan(text, matches, getProfiles(player))) {
+            return;
+        }
+
+        for (int i = 0; i < matches.size(); i++) {
+            recordHit(engine.getEntry(matches.getEntry(i)));
+        }
+
+        String badWord = engine.getEntry(matches.getEntry(0));
+        if (settings.isCensor()) {
+            recordCensored();
+            event.setMessage(prefix + matches.censor(text, settings.getCensorCharacter()));
+            player.sendMessage(CENSORED_MESSAGE);
+        } else {
+            recordBlocked();
+            event.setCancelled(true);
+            player.sendMessage(FILTERED_MESSAGE);
+        }
+        player.sendMessage(LOGGED_MESSAGE);
+        getReporter().report(new Violation(player.getName(), ViolationType.WORD,
+                String.format("%s (in %s)", badWord, message.substring(0, space)), System.currentTimeMillis()));
+    }
+
+    private static int skipSpaces(String message, int from) {
+        if (from == -1) {
+            return -1;
+        }
+        while (from < message.length() && message.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+}
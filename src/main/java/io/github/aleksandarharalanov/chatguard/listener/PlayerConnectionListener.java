@@ -0,0 +1,73 @@
+package io.github.aleksandarharalanov.chatguard.listener;
+
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterMatches;
+import io.github.aleksandarharalanov.chatguard.handler.Settings;
+import io.github.aleksandarharalanov.chatguard.violation.Violation;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerListener;
+import org.bukkit.event.player.PlayerLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getReporter;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.canBypass;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.invalidate;
+import static io.github.aleksandarharalanov.chatguard.handler.DuplicateHandler.forgetMessages;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getMatches;
+import static io.github.aleksandarharalanov.chatguard.handler.ProfileHandler.forgetProfiles;
+import static io.github.aleksandarharalanov.chatguard.handler.ProfileHandler.getProfiles;
+import static io.github.aleksandarharalanov.chatguard.handler.FloodHandler.forget;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBlocked;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordHit;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordScanned;
+
+public class PlayerConnectionListener extends PlayerListener {
+
+    private static final String NAME_MESSAGE = "Your name contains a filtered word.";
+
+    @Override
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        Settings settings = getSettings();
+        if (!settings.isToggle() || !settings.isScanNames() || canBypass(player)) {
+            return;
+        }
+
+        recordScanned();
+        FilterEngine engine = getFilter().getEngine();
+        FilterMatches matches = getMatches();
+        if (engine.scan(player.getName(), matches, getProfiles(player))) {
+            for (int i = 0; i < matches.size(); i++) {
+                recordHit(engine.getEntry(matches.getEntry(i)));
+            }
+            recordBlocked();
+
+            event.disallow(PlayerLoginEvent.Result.KICK_OTHER, NAME_MESSAGE);
+            getReporter().report(new Violation(player.getName(), ViolationType.WORD,
+                    String.format("%s (in name)", engine.getEntry(matches.getEntry(0))), System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Decisions cached while logging in may predate the player's permissions and world.
+        invalidate(event.getPlayer());
+        forgetProfiles(event.getPlayer());
+    }
+
+    @Override
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+        forget(event.getPlayer());
+        forgetMessages(event.getPlayer());
+        forgetProfiles(event.getPlayer());
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.aleksandarharalanov.chatguard.listener;
+
+import io.github.aleksandarharalanov.chatguard.filter.FilterEngine;
+import io.github.aleksandarharalanov.chatguard.filter.FilterMatches;
+import io.github.aleksandarharalanov.chatguard.handler.Settings;
+import io.github.aleksandarharalanov.chatguard.violation.Violation;
+import io.github.aleksandarharalanov.chatguard.violation.ViolationType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockListener;
+import org.bukkit.event.block.SignChangeEvent;
+
+import static io.github.aleksandarharalanov.chatguard.ChatGuard.getReporter;
+import static io.github.aleksandarharalanov.chatguard.handler.BypassHandler.canBypass;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getFilter;
+import static io.github.aleksandarharalanov.chatguard.handler.FilterHandler.getMatches;
+import static io.github.aleksandarharalanov.chatguard.handler.ProfileHandler.getProfiles;
+import static io.github.aleksandarharalanov.chatguard.handler.SettingsHandler.getSettings;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBlocked;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordBypassed;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordCensored;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordHit;
+import static io.github.aleksandarharalanov.chatguard.handler.StatsHandler.recordScanned;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.CENSORED_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.FILTERED_MESSAGE;
+import static io.github.aleksandarharalanov.chatguard.listener.PlayerChatListener.LOGGED_MESSAGE;
+
+public class SignChangeListener extends BlockListener {
+
+    private static final ThreadLocal<StringBuilder> TEXT = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    @Override
+    public void onSignChange(SignChangeEvent event) {
+        Settings settings = getSettings();
+        if (!settings.isToggle() || !settings.isScanSigns() || event.isCancelled()) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        if (canBypass(player)) {
+            recordBypassed();
+            return;
+        }
+
+        // All lines are scanned at once, separated by line breaks; the normalizer turns those into word boundaries,
+        // so words on different lines never run together.
+        String[] lines = event.getLines();
+        StringBuilder text = TEXT.get();
+        text.setLength(0);
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                text.append('\n');
+            }
+            if (lines[i] != null) {
+                text.append(lines[i]);
+            }
+        }
+
+        recordScanned();
+        FilterEngine engine = getFilter().getEngine();
+        FilterMatches matches = getMatches();
+        if (!engine.scan(text, matches, getProfiles(player))) {
+            return;
+        }
+
+        for (int i = 0; i < matches.size(); i++) {
+            recordHit(engine.getEntry(matches.getEntry(i)));
+        }
+
+        String badWord = engine.getEntry(matches.getEntry(0));
+        if (settings.isCensor()) {
+            recordCensored();
+            String censored = matches.censor(text.toString(), settings.getCensorCharacter());
+            int from = 0;
+            for (int i = 0; i < lines.length; i++) {
+                int to = from + (lines[i] != null ? lines[i].length() : 0);
+                event.setLine(i, censored.substring(from, to));
+                from = to + 1;
+            }
+            player.sendMessage(CENSORED_MESSAGE);
+        } else {
+            recordBlocked();
+            event.setCancelled(true);
+            player.sendMessage(FILTERED_MESSAGE);
+        }
+        player.sendMessage(LOGGED_MESSAGE);
+        getReporter().report(new Violation(player.getName(), ViolationType.WORD,
+                String.format("%s (on a sign)", badWord), System.currentTimeMillis()));
+    }
+}
@@ -59,6 +59,22 @@ public class AccessUtil {
         return hasPermission || isOp;
     }
 
+    /**
+     * Checks if the sender was explicitly granted the specified permission.
+     * <p>
+     * Unlike {@link #hasPermission(CommandSender, String)}, being an operator isn't enough: the permission must be set
+     * for the sender, e.g. by a permissions plugin. Meant for permissions that change what applies to a player rather
+     * than what they may do, which ops shouldn't pick up implicitly.
+     * This method does not send any messages if the sender lacks permission.
+     *
+     * @param sender     the entity to check
+     * @param permission the permission node to check
+     * @return {@code true} if the permission is set and granted for the sender; {@code false} otherwise
+     */
+    public static boolean hasExplicitPermission(CommandSender sender, String permission) {
+        return sender.isPermissionSet(permission) && sender.hasPermission(permission);
+    }
+
     /**
      * Ensures that the command can only be executed in-game by a player.
      * <p>
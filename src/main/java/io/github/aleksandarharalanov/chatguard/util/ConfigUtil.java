@@ -2,11 +2,28 @@ package io.github.aleksandarharalanov.chatguard.util;
 
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.util.config.Configuration;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
 
 import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logInfo;
 import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
@@ -22,8 +39,16 @@ import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
  */
 public class ConfigUtil extends Configuration {
 
+    private static final long SAVE_DELAY_TICKS = 40L;
+
+    private final JavaPlugin plugin;
     private final File configFile;
     private final String pluginName;
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private final Yaml yaml;
+    private final Yaml loader = new Yaml(new SafeConstructor());
+    private volatile long checksum = -1;
 
     /**
      * Constructs a new instance of {@code ConfigUtil}.
@@ -33,8 +58,14 @@ public class ConfigUtil extends Configuration {
      */
     public ConfigUtil(JavaPlugin plugin, String fileName) {
         super(new File(plugin.getDataFolder(), fileName));
+        this.plugin = plugin;
         this.configFile = new File(plugin.getDataFolder(), fileName);
         this.pluginName = plugin.getDescription().getName();
+
+        DumperOptions options = new DumperOptions();
+        options.setIndent(4);
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        this.yaml = new Yaml(options);
     }
 
     /**
@@ -47,7 +78,7 @@ public class ConfigUtil extends Configuration {
      * </ul>
      */
     @Override
-    public void load() {
+    public synchronized void load() {
         createParentDirectories();
 
         if (!configFile.exists()) {
@@ -56,11 +87,145 @@ public class ConfigUtil extends Configuration {
 
         try {
             super.load();
+            checksum = checksum(Files.readAllBytes(configFile.toPath()));
         } catch (Exception e) {
             logSevere(String.format("[%s] Failed to load config '%s': %s", pluginName, configFile.getName(), e.getMessage()));
         }
     }
 
+    /**
+     * Reloads the configuration file, keeping the current configuration if the file is broken.
+     * <p>
+     * Unlike {@link #load()}, which may leave the configuration empty when the file isn't a valid YAML mapping, the file
+     * is parsed first and only swapped in once it parsed successfully. Safe to call from any thread.
+     *
+     * @return {@code true} if the configuration was reloaded, otherwise {@code false}
+     */
+    @SuppressWarnings("unchecked")
+    public boolean reload() {
+        byte[] bytes;
+        Object parsed;
+        try {
+            bytes = Files.readAllBytes(configFile.toPath());
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+                parsed = loader.load(reader);
+            }
+        } catch (IOException | YAMLException e) {
+            logSevere(String.format("[%s] Failed to reload config '%s', keeping the current one: %s",
+                    pluginName, configFile.getName(), e.getMessage()));
+            return false;
+        }
+
+        if (!(parsed instanceof Map)) {
+            logSevere(String.format("[%s] Failed to reload config '%s', keeping the current one: root must be a key-value structure",
+                    pluginName, configFile.getName()));
+            return false;
+        }
+
+        synchronized (this) {
+            root = (Map<String, Object>) parsed;
+        }
+        checksum = checksum(bytes);
+        return true;
+    }
+
+    /**
+     * Checks if the configuration file differs from what was last loaded or saved by this utility.
+     * <p>
+     * Used to tell edits made by someone else from the plugin's own saves, which also touch the file.
+     *
+     * @return {@code true} if the file was changed externally, otherwise {@code false}
+     */
+    public boolean isModified() {
+        try {
+            return checksum(Files.readAllBytes(configFile.toPath())) != checksum;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Saves the configuration file without ever leaving it half-written.
+     * <ul>
+     * <li>Copies the configuration tree while holding the configuration lock, so changes made meanwhile are either
+     * fully included or not at all.</li>
+     * <li>Writes the copy to a temporary file next to the configuration file and syncs it to disk.</li>
+     * <li>Atomically renames the temporary file over the configuration file, so a crash leaves either the old or the
+     * new file in place, never a truncated one.</li>
+     * </ul>
+     * Concurrent saves are serialized, and each writes the state current when it started writing.
+     *
+     * @return {@code true} if the configuration was saved, otherwise {@code false}
+     */
+    @Override
+    public boolean save() {
+        synchronized (writeLock) {
+            Map<String, Object> copy;
+            synchronized (this) {
+                copy = copyMap(root);
+            }
+
+            createParentDirectories();
+            File temp = new File(configFile.getParentFile(), configFile.getName() + ".tmp");
+            try {
+                byte[] bytes = yaml.dump(copy).getBytes(StandardCharsets.UTF_8);
+                try (FileOutputStream stream = new FileOutputStream(temp)) {
+                    stream.write(bytes);
+                    stream.getFD().sync();
+                }
+
+                try {
+                    Files.move(temp.toPath(), configFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), configFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                checksum = checksum(bytes);
+                return true;
+            } catch (IOException e) {
+                logSevere(String.format("[%s] Failed to write config '%s': %s", pluginName, configFile.getName(), e.getMessage()));
+                temp.delete();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Deep-copies a configuration map, so it can be serialized while the original keeps changing.
+     *
+     * @param map the map to copy
+     *
+     * @return the copy
+     */
+    private static Map<String, Object> copyMap(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>(map.size() * 2);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            copy.put(String.valueOf(entry.getKey()), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+
     /**
      * Creates the parent directories for the configuration file if they do not exist.
      * <p>
@@ -114,19 +279,114 @@ public class ConfigUtil extends Configuration {
     }
 
     /**
-     * Saves the configuration file and logs the result.
+     * Saves the configuration file on the calling thread and logs the result.
      * <p>
-     * Logs a message indicating whether the configuration was saved successfully.
+     * Logs a message indicating whether the configuration was saved successfully. Any save requested through
+     * {@link #requestSave()} is covered by this one, which makes it suitable for flushing on shutdown.
      */
     public void saveConfig() {
-        try {
-            this.save();
+        if (this.save()) {
             logInfo(String.format("[%s] Config '%s' saved successfully.", pluginName, configFile.getName()));
-        } catch (Exception e) {
-            logSevere(String.format("[%s] Failed to save config '%s': %s", pluginName, configFile.getName(), e.getMessage()));
+        } else {
+            logSevere(String.format("[%s] Failed to save config '%s'.", pluginName, configFile.getName()));
         }
     }
 
+    /**
+     * Schedules the configuration file to be saved on a background thread.
+     * <p>
+     * Requests arriving while a save is already pending are folded into it, so a burst of changes is written once, about
+     * two seconds after the first of them. Callers never wait on disk I/O; {@link #saveConfig()} should still be called
+     * on shutdown to flush anything pending.
+     */
+    public void requestSave() {
+        if (savePending.compareAndSet(false, true)) {
+            plugin.getServer().getScheduler().scheduleAsyncDelayedTask(plugin, () -> {
+                savePending.set(false);
+                saveConfig();
+            }, SAVE_DELAY_TICKS);
+        }
+    }
+
+    /**
+     * Sets a configuration property.
+     * <p>
+     * Synchronized with loading, saving and reading, so a property may be changed from any thread while a background
+     * save is writing the file.
+     *
+     * @param path  the path of the property
+     * @param value the new value
+     */
+    @Override
+    public synchronized void setProperty(String path, Object value) {
+        super.setProperty(path, value);
+    }
+
+    /**
+     * Removes a configuration property.
+     * <p>
+     * Synchronized like {@link #setProperty(String, Object)}.
+     *
+     * @param path the path of the property
+     */
+    @Override
+    public synchronized void removeProperty(String path) {
+        super.removeProperty(path);
+    }
+
+    /**
+     * Gets a configuration property.
+     * <p>
+     * Synchronized with {@link #setProperty(String, Object)} and {@link #reload()}, so the configuration may be read
+     * from the main thread, the config watcher and background tasks while another thread changes it. The typed getters
+     * all read through this method.
+     *
+     * @param path the path of the property
+     *
+     * @return the value, or {@code null} if the property doesn't exist
+     */
+    @Override
+    public synchronized Object getProperty(String path) {
+        return super.getProperty(path);
+    }
+
+    /**
+     * Gets a list property, copying it while holding the configuration lock.
+     *
+     * @param path the path of the property
+     *
+     * @return the list, or {@code null} if the property doesn't exist
+     */
+    @Override
+    public synchronized List<Object> getList(String path) {
+        return super.getList(path);
+    }
+
+    /**
+     * Gets a list of strings, copying it while holding the configuration lock.
+     *
+     * @param path the path of the property
+     * @param def  the default value
+     *
+     * @return the list, or {@code def} if the property doesn't exist
+     */
+    @Override
+    public synchronized List<String> getStringList(String path, List<String> def) {
+        return super.getStringList(path, def);
+    }
+
+    /**
+     * Gets the keys of a node, copying them while holding the configuration lock.
+     *
+     * @param path the path of the node
+     *
+     * @return the keys, or {@code null} if the node doesn't exist
+     */
+    @Override
+    public synchronized List<String> getKeys(String path) {
+        return super.getKeys(path);
+    }
+
     /**
      * Returns the configuration file managed by this utility.
      *
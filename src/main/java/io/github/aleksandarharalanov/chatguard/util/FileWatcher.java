@@ -0,0 +1,119 @@
+package io.github.aleksandarharalanov.chatguard.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
+
+/**
+ * Utility class for watching files in a directory and reacting to their changes.
+ * <p>
+ * A single daemon thread waits on a {@link WatchService} for the directory. Editors and the plugin itself usually
+ * write a file in several steps (truncate and write, or write a temporary file and rename it), so changes are
+ * debounced: the callback runs once the watched files have been quiet for the debounce delay, however many events
+ * the burst produced. The callback runs on the watcher thread, never on the main server thread.
+ * <p>
+ * <b>Note:</b> Only files directly inside the directory are watched, by name.
+ */
+public class FileWatcher {
+
+    private final Set<String> names;
+    private final long debounce;
+    private final Runnable callback;
+    private final WatchService service;
+    private final Thread thread;
+
+    /**
+     * Constructs a new watcher without starting it.
+     *
+     * @param directory      the directory containing the watched files
+     * @param names          the names of the watched files
+     * @param debounceMillis how long the files must stay unchanged before the callback runs, in milliseconds
+     * @param callback       the action to run after a burst of changes
+     *
+     * @throws IOException if the directory can't be watched
+     */
+    public FileWatcher(File directory, Collection<String> names, long debounceMillis, Runnable callback)
+            throws IOException {
+        this.names = new HashSet<>(names);
+        this.debounce = debounceMillis;
+        this.callback = callback;
+        this.service = FileSystems.getDefault().newWatchService();
+        try {
+            directory.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+
+        this.thread = new Thread(this::run, "ChatGuard-Watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching and waits briefly for a running callback to finish.
+     */
+    public void close() {
+        try {
+            service.close();
+        } catch (IOException ignored) {
+        }
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = drain(key);
+
+                // Keep absorbing events until the directory has been quiet for the whole delay.
+                while ((key = service.poll(debounce, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+
+                if (changed) {
+                    try {
+                        callback.run();
+                    } catch (RuntimeException e) {
+                        logSevere(String.format("[ChatGuard] Failed to apply changes of watched files: %s", e));
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || names.contains(event.context().toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -1,12 +1,18 @@
 package io.github.aleksandarharalanov.chatguard.util;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
 
 import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.*;
 
@@ -14,10 +20,38 @@ import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.*;
  * Utility class for checking and comparing plugin versions with the latest release on GitHub.
  * <p>
  * This class queries the GitHub API for the latest release version and compares it with the current plugin version.
- * It logs messages indicating whether an update is available or if the plugin is up to date.
+ * It logs messages indicating whether an update is available or if the plugin is up to date. The last result can be
+ * cached on disk with its {@code ETag}, so frequent restarts don't query the API every time.
  */
 public class UpdateUtil {
 
+    /**
+     * Timeout for connecting to the GitHub API, in milliseconds.
+     */
+    public static final int CONNECT_TIMEOUT = 5000;
+
+    /**
+     * Timeout for reading the GitHub API response, in milliseconds.
+     */
+    public static final int READ_TIMEOUT = 5000;
+
+    /**
+     * Checks for updates by querying a given GitHub API URL and comparing the current version with the latest
+     * available version, without caching the result.
+     *
+     * @param pluginName    the name of the plugin
+     * @param pluginVersion the current version of the plugin
+     * @param githubApiUrl  the GitHub API URL to query for the latest release information; should be in the format
+     *                      {@code https://api.github.com/repos/USER/REPO/releases/latest}
+     *
+     * @return the latest version, or {@code null} if it couldn't be determined
+     *
+     * @see #checkForUpdates(String, String, String, File, long)
+     */
+    public static String checkForUpdates(String pluginName, String pluginVersion, String githubApiUrl) {
+        return checkForUpdates(pluginName, pluginVersion, githubApiUrl, null, 0);
+    }
+
     /**
      * Checks for updates by querying a given GitHub API URL and comparing the current version with the latest
      * available version.
@@ -25,6 +59,13 @@ public class UpdateUtil {
      * This method appends {@code v} to the front of the current version to comply with GitHub's semantic versioning
      * conventions. It then compares this formatted version with the latest release version obtained from the
      * GitHub API.
+     * <ul>
+     * <li>If the cache file holds a result younger than {@code cacheTtl}, it is used and no request is made.</li>
+     * <li>Otherwise the request is sent with the cached {@code ETag}, if any; a {@code 304 Not Modified} response
+     * reuses the cached version and only renews its age.</li>
+     * <li>Connecting and reading are bounded by {@link #CONNECT_TIMEOUT} and {@link #READ_TIMEOUT}.</li>
+     * </ul>
+     * The request blocks the calling thread, so this method should be called from an asynchronous task.
      * <p>
      * <b>Warning:</b> This method only works with GitHub repositories. Ensure that the GitHub API URL points to
      * the latest release information of your repository.
@@ -33,35 +74,88 @@ public class UpdateUtil {
      * @param pluginVersion the current version of the plugin
      * @param githubApiUrl  the GitHub API URL to query for the latest release information; should be in the format
      *                      {@code https://api.github.com/repos/USER/REPO/releases/latest}
+     * @param cacheFile     the file caching the last result and its {@code ETag}, or {@code null} to disable caching
+     * @param cacheTtl      how long a cached result is trusted without asking again, in milliseconds
+     *
+     * @return the latest version, or {@code null} if it couldn't be determined
      */
-    public static void checkForUpdates(String pluginName, String pluginVersion, String githubApiUrl) {
+    public static String checkForUpdates(String pluginName, String pluginVersion, String githubApiUrl, File cacheFile,
+                                         long cacheTtl) {
+        return checkForUpdates(pluginName, pluginVersion, githubApiUrl, cacheFile, cacheTtl,
+                CONNECT_TIMEOUT, READ_TIMEOUT);
+    }
+
+    /**
+     * Checks for updates as {@link #checkForUpdates(String, String, String, File, long)} does, with the given
+     * timeouts.
+     *
+     * @param pluginName     the name of the plugin
+     * @param pluginVersion  the current version of the plugin
+     * @param githubApiUrl   the GitHub API URL to query for the latest release information
+     * @param cacheFile      the file caching the last result and its {@code ETag}, or {@code null} to disable caching
+     * @param cacheTtl       how long a cached result is trusted without asking again, in milliseconds
+     * @param connectTimeout the timeout for connecting, in milliseconds
+     * @param readTimeout    the timeout for reading the response, in milliseconds
+     *
+     * @return the latest version, or {@code null} if it couldn't be determined
+     */
+    static String checkForUpdates(String pluginName, String pluginVersion, String githubApiUrl, File cacheFile,
+                                  long cacheTtl, int connectTimeout, int readTimeout) {
+        Properties cache = loadCache(cacheFile);
+        String cachedVersion = cache.getProperty("latest");
+        long checked = parseLong(cache.getProperty("checked"));
+        long now = System.currentTimeMillis();
+        String formattedCurrentVersion = "v" + pluginVersion;
+
+        if (cachedVersion != null && githubApiUrl.equals(cache.getProperty("url"))
+                && now - checked >= 0 && now - checked < cacheTtl) {
+            compareVersions(pluginName, formattedCurrentVersion, cachedVersion, githubApiUrl);
+            return cachedVersion;
+        }
+
         HttpURLConnection connection = null;
         try {
             URI uri = new URI(githubApiUrl);
             URL url = uri.toURL();
             connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setUseCaches(false);
+            String etag = cache.getProperty("etag");
+            if (etag != null && cachedVersion != null && githubApiUrl.equals(cache.getProperty("url"))) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
 
             int responseCode = connection.getResponseCode();
-            if (responseCode != 200) {
+            String latestVersion;
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedVersion != null) {
+                latestVersion = cachedVersion;
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+                StringBuilder content = new StringBuilder();
+                try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                        StandardCharsets.UTF_8))) {
+                    String inputLine;
+                    while ((inputLine = in.readLine()) != null) {
+                        content.append(inputLine);
+                    }
+                }
+
+                latestVersion = getLatestVersion(content.toString());
+                etag = connection.getHeaderField("ETag");
+            } else {
                 handleResponseError(pluginName, responseCode);
-                return;
+                return null;
             }
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            StringBuilder content = new StringBuilder();
-            String inputLine;
-            while ((inputLine = in.readLine()) != null) {
-                content.append(inputLine);
+            if (latestVersion != null) {
+                saveCache(pluginName, cacheFile, githubApiUrl, latestVersion, etag, now);
             }
-            in.close();
-
-            String responseBody = content.toString();
-            String latestVersion = getLatestVersion(responseBody);
-            String formattedCurrentVersion = "v" + pluginVersion;
             compareVersions(pluginName, formattedCurrentVersion, latestVersion, githubApiUrl);
+            return latestVersion;
         } catch (IOException | URISyntaxException e) {
             logSevere(String.format("[%s] Exception occurred while checking for a new version: %s", pluginName, e.getMessage()));
+            return null;
         } finally {
             if (connection != null) {
                 connection.disconnect();
@@ -69,6 +163,74 @@ public class UpdateUtil {
         }
     }
 
+    /**
+     * Loads the cached result of the last update check.
+     *
+     * @param cacheFile the cache file, or {@code null}
+     *
+     * @return the cached properties; empty if there is no readable cache
+     */
+    private static Properties loadCache(File cacheFile) {
+        Properties cache = new Properties();
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return cache;
+        }
+
+        try (InputStream in = Files.newInputStream(cacheFile.toPath())) {
+            cache.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            cache.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Saves the result of an update check to the cache file.
+     * <p>
+     * Failures are logged as warnings; the check itself already succeeded.
+     *
+     * @param pluginName    the name of the plugin
+     * @param cacheFile     the cache file, or {@code null} to skip caching
+     * @param githubApiUrl  the URL the result belongs to
+     * @param latestVersion the latest version
+     * @param etag          the {@code ETag} of the response, or {@code null}
+     * @param checked       when the check was made, in milliseconds since the epoch
+     */
+    private static void saveCache(String pluginName, File cacheFile, String githubApiUrl, String latestVersion,
+                                  String etag, long checked) {
+        if (cacheFile == null) {
+            return;
+        }
+
+        Properties cache = new Properties();
+        cache.setProperty("url", githubApiUrl);
+        cache.setProperty("latest", latestVersion);
+        cache.setProperty("checked", Long.toString(checked));
+        if (etag != null) {
+            cache.setProperty("etag", etag);
+        }
+
+        try {
+            Files.createDirectories(cacheFile.getParentFile().toPath());
+            try (OutputStream out = Files.newOutputStream(cacheFile.toPath())) {
+                cache.store(out, "Last update check");
+            }
+        } catch (IOException e) {
+            logWarning(String.format("[%s] Failed to cache the update check: %s", pluginName, e.getMessage()));
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Handles response errors when querying the GitHub API for the latest release version.
      * <p>
@@ -0,0 +1,152 @@
+package io.github.aleksandarharalanov.chatguard.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Utility class for reading and writing wordlist files.
+ * <p>
+ * Wordlists are either plain text, with one entry per line, or CSV, where only the first column of each row is used.
+ * The format is chosen by the file extension. Files are streamed line by line, so lists with hundreds of thousands of
+ * entries never have to be held in memory as a whole.
+ * <p>
+ * <b>Note:</b> Only {@code .txt} and {@code .csv} files inside the plugin folder can be read or written; see
+ * {@link #resolve(File, String)}.
+ */
+public class WordlistUtil {
+
+    /**
+     * Number of lines between two progress callbacks while reading.
+     */
+    public static final int PROGRESS_INTERVAL = 100000;
+
+    /**
+     * Resolves a wordlist file name against the plugin folder.
+     * <p>
+     * Only {@code .txt} and {@code .csv} names are accepted. None of the files the plugin keeps for itself, such as the
+     * config, the violation history or the compiled filter, use those extensions, so an export can never overwrite them.
+     *
+     * @param folder the plugin folder
+     * @param name   the file name, optionally with subfolders
+     *
+     * @return the resolved file
+     *
+     * @throws IOException              if the path cannot be resolved
+     * @throws IllegalArgumentException if the path points outside the plugin folder or isn't a wordlist file
+     */
+    public static File resolve(File folder, String name) throws IOException {
+        String extension = name.toLowerCase(Locale.ROOT);
+        if (!extension.endsWith(".txt") && !extension.endsWith(".csv")) {
+            throw new IllegalArgumentException("only .txt and .csv files are supported");
+        }
+
+        File base = folder.getCanonicalFile();
+        File file = new File(base, name).getCanonicalFile();
+        if (!file.toPath().startsWith(base.toPath()) || file.equals(base)) {
+            throw new IllegalArgumentException("the file must be inside the plugin folder");
+        }
+        return file;
+    }
+
+    /**
+     * Streams the entries of a wordlist file.
+     * <p>
+     * Each entry is trimmed, its inner whitespace collapsed and its case folded. Blank lines and lines starting with
+     * {@code #} are skipped.
+     *
+     * @param file     the wordlist file
+     * @param sink     receives every entry, in file order and including duplicates
+     * @param progress receives the number of lines read so far, every {@link #PROGRESS_INTERVAL} lines
+     *
+     * @return the total number of lines read
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public static long read(File file, Consumer<String> sink, LongConsumer progress) throws IOException {
+        boolean csv = isCsv(file);
+        long lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (++lines % PROGRESS_INTERVAL == 0) {
+                    progress.accept(lines);
+                }
+
+                String entry = normalizeEntry(csv ? firstColumn(line) : line);
+                if (entry != null) {
+                    sink.accept(entry);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes entries to a wordlist file, replacing it if it exists.
+     *
+     * @param file    the wordlist file
+     * @param entries the entries to write
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File file, Collection<String> entries) throws IOException {
+        boolean csv = isCsv(file);
+        Files.createDirectories(file.getParentFile().toPath());
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            for (String entry : entries) {
+                writer.write(csv ? quote(entry) : entry);
+                writer.newLine();
+            }
+        }
+    }
+
+    private static boolean isCsv(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+
+    private static String normalizeEntry(String entry) {
+        String trimmed = entry.trim().replaceAll("\\s+", " ");
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '#') {
+            return null;
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static String firstColumn(String line) {
+        if (line.isEmpty() || line.charAt(0) != '"') {
+            int comma = line.indexOf(',');
+            return comma == -1 ? line : line.substring(0, comma);
+        }
+
+        StringBuilder column = new StringBuilder();
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    break;
+                }
+            } else {
+                column.append(c);
+            }
+        }
+        return column.toString();
+    }
+
+    private static String quote(String entry) {
+        if (entry.indexOf(',') == -1 && entry.indexOf('"') == -1) {
+            return entry;
+        }
+        return '"' + entry.replace("\"", "\"\"") + '"';
+    }
+}
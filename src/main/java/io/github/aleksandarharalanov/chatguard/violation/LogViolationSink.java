@@ -0,0 +1,18 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.util.List;
+
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logWarning;
+
+/**
+ * {@link ViolationSink} writing every violation to the server console.
+ */
+public final class LogViolationSink implements ViolationSink {
+
+    @Override
+    public void accept(List<Violation> batch) {
+        for (Violation violation : batch) {
+            logWarning(String.format("[ChatGuard] %s: %s", violation.getPlayer(), violation.getDetail()));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable rules for scoring strikes: how much each violation adds, how fast scores decay and when to act.
+ * <p>
+ * Scores decay exponentially with a configured half-life. The decay is applied lazily from the time a score was last
+ * changed whenever it is read or raised, so no task has to tick per player.
+ */
+public final class StrikePolicy {
+
+    private final long halfLife;
+    private final double[] weights;
+    private final List<StrikeThreshold> thresholds;
+
+    /**
+     * Constructs a new policy.
+     *
+     * @param halfLife   how long it takes for a score to halve, in milliseconds
+     * @param weights    how much a violation of each type adds, indexed by {@link ViolationType} ordinal
+     * @param thresholds the thresholds, in any order
+     */
+    public StrikePolicy(long halfLife, double[] weights, Collection<StrikeThreshold> thresholds) {
+        this.halfLife = Math.max(1, halfLife);
+        this.weights = weights.clone();
+        List<StrikeThreshold> sorted = new ArrayList<>(thresholds);
+        Collections.sort(sorted);
+        this.thresholds = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Decays a score over the given time.
+     *
+     * @param score   the score when it was last changed
+     * @param elapsed the time since then, in milliseconds
+     *
+     * @return the decayed score
+     */
+    public double decay(double score, long elapsed) {
+        if (elapsed <= 0 || score == 0) {
+            return score;
+        }
+        return score * Math.pow(0.5, (double) elapsed / halfLife);
+    }
+
+    /**
+     * Returns how much a violation of the given type adds to a score.
+     *
+     * @param type the violation type
+     *
+     * @return the weight; {@code 0} if the type doesn't count
+     */
+    public double getWeight(ViolationType type) {
+        return type.ordinal() < weights.length ? weights[type.ordinal()] : 0;
+    }
+
+    /**
+     * Returns how long it takes for a score to halve.
+     *
+     * @return the half-life in milliseconds
+     */
+    public long getHalfLife() {
+        return halfLife;
+    }
+
+    /**
+     * Returns the thresholds, lowest score first.
+     *
+     * @return an unmodifiable list of thresholds
+     */
+    public List<StrikeThreshold> getThresholds() {
+        return thresholds;
+    }
+}
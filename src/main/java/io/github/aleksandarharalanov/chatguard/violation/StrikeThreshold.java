@@ -0,0 +1,158 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Action taken once a player's strike score reaches a configured value.
+ * <p>
+ * Thresholds are written as {@code <score> <action> [argument]}:
+ * <ul>
+ * <li>{@code 4 mute 300} mutes the player for 300 seconds;</li>
+ * <li>{@code 8 kick} kicks the player;</li>
+ * <li>{@code 12 command ban %player%} runs the command from the console, with {@code %player%} replaced by the
+ * player name.</li>
+ * </ul>
+ */
+public final class StrikeThreshold implements Comparable<StrikeThreshold> {
+
+    private final String source;
+    private final double score;
+    private final Action action;
+    private final long duration;
+    private final String command;
+
+    private StrikeThreshold(String source, double score, Action action, long duration, String command) {
+        this.source = source;
+        this.score = score;
+        this.action = action;
+        this.duration = duration;
+        this.command = command;
+    }
+
+    /**
+     * Parses a threshold.
+     *
+     * @param source the threshold, as written in the configuration
+     *
+     * @return the parsed threshold
+     *
+     * @throws IllegalArgumentException if the threshold isn't valid
+     */
+    public static StrikeThreshold parse(String source) {
+        String[] parts = source.trim().split("\\s+", 3);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("expected '<score> <action> [argument]'");
+        }
+
+        double score;
+        try {
+            score = Double.parseDouble(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("'%s' isn't a valid score", parts[0]));
+        }
+        if (!(score > 0)) {
+            throw new IllegalArgumentException("score must be positive");
+        }
+
+        switch (parts[1].toLowerCase(Locale.ROOT)) {
+            case "mute":
+                if (parts.length < 3) {
+                    throw new IllegalArgumentException("mute needs a duration in seconds");
+                }
+                long seconds;
+                try {
+                    seconds = Long.parseLong(parts[2]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("'%s' isn't a valid duration", parts[2]));
+                }
+                if (seconds <= 0) {
+                    throw new IllegalArgumentException("mute duration must be positive");
+                }
+                return new StrikeThreshold(source, score, Action.MUTE, TimeUnit.SECONDS.toMillis(seconds), null);
+            case "kick":
+                return new StrikeThreshold(source, score, Action.KICK, 0, null);
+            case "command":
+                if (parts.length < 3) {
+                    throw new IllegalArgumentException("command needs a command to run");
+                }
+                String command = parts[2].startsWith("/") ? parts[2].substring(1) : parts[2];
+                return new StrikeThreshold(source, score, Action.COMMAND, 0, command);
+            default:
+                throw new IllegalArgumentException(String.format("unknown action '%s'", parts[1]));
+        }
+    }
+
+    /**
+     * Returns the threshold as written in the configuration.
+     *
+     * @return the source threshold
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the score at which the action is taken.
+     *
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the action taken.
+     *
+     * @return the action
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Returns how long a mute lasts.
+     *
+     * @return the mute duration in milliseconds, or {@code 0} for other actions
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the command run from the console, without a leading slash.
+     *
+     * @param player the name of the player who reached the threshold
+     *
+     * @return the command with {@code %player%} replaced, or {@code null} for other actions
+     */
+    public String getCommand(String player) {
+        return command == null ? null : command.replace("%player%", player);
+    }
+
+    @Override
+    public int compareTo(StrikeThreshold other) {
+        return Double.compare(score, other.score);
+    }
+
+    /**
+     * What happens when a threshold is reached.
+     */
+    public enum Action {
+
+        /**
+         * The player can't chat for a while.
+         */
+        MUTE,
+
+        /**
+         * The player is kicked from the server.
+         */
+        KICK,
+
+        /**
+         * A command is run from the console.
+         */
+        COMMAND
+    }
+}
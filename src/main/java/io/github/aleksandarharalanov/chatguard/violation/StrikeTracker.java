@@ -0,0 +1,263 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
+
+/**
+ * {@link ViolationSink} keeping a decaying strike score per player and escalating when thresholds are reached.
+ * <p>
+ * Every violation adds the weight of its type to the player's score. A score is stored with the time it last changed
+ * and decays from there according to the current {@link StrikePolicy}, so each player costs one small entry and no
+ * task ticks per player. When a raise carries a score past a threshold, the threshold is handed to the
+ * {@link Escalation} in order, lowest first; mutes are applied here, since the chat path reads them.
+ * <p>
+ * Scores are persisted to {@code strikes.dat}, rewritten from the reporter's worker thread at most every 30 seconds
+ * and on {@link #close()}. Entries whose score has decayed away and that aren't muted are dropped when saving.
+ * <p>
+ * <b>File layout:</b> {@code int magic, int version, int count}, then per player
+ * {@code UTF name, double score, long updated, long mutedUntil}.
+ */
+public final class StrikeTracker implements ViolationSink {
+
+    private static final int MAGIC = 0x43475354;
+    private static final int VERSION = 1;
+    private static final long SAVE_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final double FORGOTTEN = 0.01;
+
+    private final File file;
+    private final Supplier<StrikePolicy> policy;
+    private final Escalation escalation;
+    private final Map<String, Strike> strikes = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private long lastSave;
+
+    /**
+     * Opens the strike scores in the given folder.
+     *
+     * @param folder     the folder holding {@code strikes.dat}
+     * @param policy     supplies the current policy; read once per batch, so configuration reloads apply right away
+     * @param escalation receives every threshold reached
+     *
+     * @throws IOException if the file exists but cannot be read or has an unknown format
+     */
+    public StrikeTracker(File folder, Supplier<StrikePolicy> policy, Escalation escalation) throws IOException {
+        this.file = new File(folder, "strikes.dat");
+        this.policy = policy;
+        this.escalation = escalation;
+        load();
+        this.lastSave = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds the violations of a batch to the scores of their players and escalates as needed.
+     *
+     * @param batch the violations
+     */
+    @Override
+    public synchronized void accept(List<Violation> batch) {
+        StrikePolicy current = policy.get();
+        for (Violation violation : batch) {
+            double weight = current.getWeight(violation.getType());
+            if (weight > 0) {
+                strike(current, violation.getPlayer(), weight, violation.getTime());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (dirty && now - lastSave >= SAVE_INTERVAL) {
+            save(current, now);
+        }
+    }
+
+    private void strike(StrikePolicy current, String player, double weight, long time) {
+        String key = player.toLowerCase(Locale.ROOT);
+        Strike strike = strikes.get(key);
+        if (strike == null) {
+            strike = new Strike(0, time, 0);
+            strikes.put(key, strike);
+        }
+
+        double before = current.decay(strike.score, time - strike.updated);
+        double after = before + weight;
+        strike.score = after;
+        strike.updated = Math.max(strike.updated, time);
+        dirty = true;
+
+        for (StrikeThreshold threshold : current.getThresholds()) {
+            if (threshold.getScore() > after) {
+                break;
+            }
+            if (threshold.getScore() > before) {
+                if (threshold.getAction() == StrikeThreshold.Action.MUTE) {
+                    strike.mutedUntil = Math.max(strike.mutedUntil, time + threshold.getDuration());
+                }
+                escalation.escalate(player, threshold, after);
+            }
+        }
+    }
+
+    /**
+     * Returns the current score of a player.
+     *
+     * @param player the player name, case-insensitive
+     * @param now    the current time, in milliseconds since the epoch
+     *
+     * @return the decayed score; {@code 0} if the player has none
+     */
+    public double getScore(String player, long now) {
+        Strike strike = strikes.get(player.toLowerCase(Locale.ROOT));
+        return strike == null ? 0 : policy.get().decay(strike.score, now - strike.updated);
+    }
+
+    /**
+     * Returns how long a player stays muted.
+     *
+     * @param player the player name, case-insensitive
+     * @param now    the current time, in milliseconds since the epoch
+     *
+     * @return the remaining mute in milliseconds; {@code 0} if the player isn't muted
+     */
+    public long getMuteRemaining(String player, long now) {
+        Strike strike = strikes.get(player.toLowerCase(Locale.ROOT));
+        return strike == null ? 0 : Math.max(0, strike.mutedUntil - now);
+    }
+
+    /**
+     * Clears the score and mute of a player.
+     *
+     * @param player the player name, case-insensitive
+     *
+     * @return {@code true} if the player had a score or mute, otherwise {@code false}
+     */
+    public synchronized boolean pardon(String player) {
+        if (strikes.remove(player.toLowerCase(Locale.ROOT)) == null) {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Returns the number of players with a tracked score or mute.
+     *
+     * @return the number of tracked players
+     */
+    public int size() {
+        return strikes.size();
+    }
+
+    /**
+     * Saves the scores. Called once the reporter has drained its last batch.
+     */
+    public synchronized void close() {
+        if (dirty) {
+            save(policy.get(), System.currentTimeMillis());
+        }
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(String.format("'%s' isn't a supported strike file.", file.getName()));
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                strikes.put(key, new Strike(in.readDouble(), in.readLong(), in.readLong()));
+            }
+        }
+    }
+
+    private void save(StrikePolicy current, long now) {
+        List<Map.Entry<String, Strike>> kept = new ArrayList<>(strikes.size());
+        for (Map.Entry<String, Strike> entry : strikes.entrySet()) {
+            Strike strike = entry.getValue();
+            if (strike.mutedUntil > now || current.decay(strike.score, now - strike.updated) >= FORGOTTEN) {
+                kept.add(entry);
+            } else {
+                strikes.remove(entry.getKey(), strike);
+            }
+        }
+
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(kept.size());
+                for (Map.Entry<String, Strike> entry : kept) {
+                    Strike strike = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeDouble(strike.score);
+                    out.writeLong(strike.updated);
+                    out.writeLong(strike.mutedUntil);
+                }
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            logSevere(String.format("[ChatGuard] Failed to save strikes: %s", e.getMessage()));
+            temp.delete();
+        }
+        lastSave = now;
+    }
+
+    /**
+     * Receives the thresholds players reach.
+     * <p>
+     * Called from the reporter's worker thread; implementations must hand anything touching the server over to the
+     * main thread.
+     */
+    @FunctionalInterface
+    public interface Escalation {
+
+        /**
+         * Handles a reached threshold.
+         *
+         * @param player    the name of the player, as reported
+         * @param threshold the threshold reached
+         * @param score     the player's score after the violation
+         */
+        void escalate(String player, StrikeThreshold threshold, double score);
+    }
+
+    private static final class Strike {
+
+        private volatile double score;
+        private volatile long updated;
+        private volatile long mutedUntil;
+
+        private Strike(double score, long updated, long mutedUntil) {
+            this.score = score;
+            this.updated = updated;
+            this.mutedUntil = mutedUntil;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+/**
+ * Immutable record of a single violation, as passed through the {@link ViolationReporter}.
+ */
+public final class Violation {
+
+    private final String player;
+    private final ViolationType type;
+    private final String detail;
+    private final long time;
+
+    /**
+     * Constructs a new violation.
+     *
+     * @param player the name of the offending player
+     * @param type   the kind of violation
+     * @param detail what triggered the violation, such as the matched filter entry
+     * @param time   when the violation happened, in milliseconds since the epoch
+     */
+    public Violation(String player, ViolationType type, String detail, long time) {
+        this.player = player;
+        this.type = type;
+        this.detail = detail;
+        this.time = time;
+    }
+
+    /**
+     * Returns the name of the offending player.
+     *
+     * @return the player name
+     */
+    public String getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the kind of violation.
+     *
+     * @return the violation type
+     */
+    public ViolationType getType() {
+        return type;
+    }
+
+    /**
+     * Returns what triggered the violation.
+     *
+     * @return the violation detail
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Returns when the violation happened.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTime() {
+        return time;
+    }
+}
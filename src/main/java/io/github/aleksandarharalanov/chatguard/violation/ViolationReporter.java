@@ -0,0 +1,162 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logWarning;
+
+/**
+ * Asynchronous pipeline carrying violations from the chat threads to the configured sinks.
+ * <p>
+ * {@link #report(Violation)} only enqueues the violation on a bounded, lock-free queue and returns, so console and
+ * disk I/O never add to chat latency. A single background worker drains the queue in batches and hands every batch to
+ * each registered {@link ViolationSink}.
+ * <p>
+ * <b>Overflow policy:</b> when the queue is full, the newest violation is dropped rather than blocking the chat
+ * thread. Dropped violations are counted, and the worker logs a warning whenever the count has grown.
+ */
+public final class ViolationReporter {
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final ConcurrentLinkedQueue<Violation> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<ViolationSink> sinks = new CopyOnWriteArrayList<>();
+    private final int capacity;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    /**
+     * Constructs a new reporter and starts its worker thread.
+     *
+     * @param capacity the maximum number of violations waiting to be drained
+     */
+    public ViolationReporter(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.worker = new Thread(this::drainLoop, "ChatGuard-Violations");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Registers a sink to receive every subsequent batch.
+     *
+     * @param sink the sink to add
+     */
+    public void addSink(ViolationSink sink) {
+        sinks.add(sink);
+    }
+
+    /**
+     * Queues a violation for the sinks without blocking.
+     *
+     * @param violation the violation to report
+     *
+     * @return {@code true} if the violation was queued, {@code false} if it was dropped because the queue is full
+     */
+    public boolean report(Violation violation) {
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        queue.offer(violation);
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the worker and synchronously drains whatever is still queued.
+     * <p>
+     * Intended to be called once, when the plugin is disabled.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Violation> batch = new ArrayList<>(BATCH_SIZE);
+        while (drain(batch) > 0) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * Returns the number of violations dropped because the queue was full.
+     *
+     * @return the number of dropped violations
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of violations waiting to be drained.
+     *
+     * @return the current queue length
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private void drainLoop() {
+        List<Violation> batch = new ArrayList<>(BATCH_SIZE);
+        long reportedDrops = 0;
+
+        while (running) {
+            if (drain(batch) > 0) {
+                dispatch(batch);
+            } else {
+                idle = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                logWarning(String.format("[ChatGuard] Violation queue full, %d report(s) dropped so far.", drops));
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private int drain(List<Violation> batch) {
+        batch.clear();
+        Violation violation;
+        while (batch.size() < BATCH_SIZE && (violation = queue.poll()) != null) {
+            batch.add(violation);
+        }
+        queued.addAndGet(-batch.size());
+        return batch.size();
+    }
+
+    private void dispatch(List<Violation> batch) {
+        for (ViolationSink sink : sinks) {
+            try {
+                sink.accept(batch);
+            } catch (RuntimeException e) {
+                logSevere(String.format("[ChatGuard] Violation sink %s failed: %s",
+                        sink.getClass().getSimpleName(), e.getMessage()));
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.util.List;
+
+/**
+ * Destination for violations drained by the {@link ViolationReporter}.
+ * <p>
+ * Sinks are always called from the reporter's worker thread, one batch at a time, so an implementation only has to be
+ * safe against the threads that read its results, not against concurrent batches.
+ */
+public interface ViolationSink {
+
+    /**
+     * Handles a batch of violations in the order they were reported.
+     *
+     * @param batch the violations; only valid for the duration of the call
+     */
+    void accept(List<Violation> batch);
+}
@@ -0,0 +1,306 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logSevere;
+import static io.github.aleksandarharalanov.chatguard.util.LoggerUtil.logWarning;
+
+/**
+ * Append-only, on-disk history of violations with a per-player index.
+ * <p>
+ * Violations are appended to {@code violations.dat} as compact binary records. Each record stores the offset of the
+ * previous record of the same player, so the records of one player form a chain running backwards through the file.
+ * The index, kept in memory and persisted to {@code violations.idx}, only has to remember the offset of the newest
+ * record per player; looking up the last {@code n} violations of a player then costs {@code n} positional reads,
+ * however large the history grows.
+ * <p>
+ * The index file records how much of the data file it covers. On open, anything appended after that point, such as
+ * records written before a crash, is scanned to bring the index up to date, and a torn record at the end of the file
+ * is cut off.
+ * <p>
+ * <b>Record layout:</b> {@code int length, long previous, long time, byte type, UTF player, UTF detail}, where
+ * {@code length} counts the bytes following it and {@code type} is the {@link ViolationType} ordinal.
+ */
+public final class ViolationStore implements ViolationSink {
+
+    private static final int MAGIC = 0x43475648;
+    private static final int DATA_VERSION = 1;
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+    private static final long INDEX_SAVE_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    private final File dataFile;
+    private final File indexFile;
+    private final FileChannel channel;
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private long size;
+    private long lastIndexSave;
+
+    /**
+     * Opens the history in the given folder, creating its files if needed.
+     *
+     * @param folder the folder holding {@code violations.dat} and {@code violations.idx}
+     *
+     * @throws IOException if the data file cannot be opened or has an unknown format
+     */
+    public ViolationStore(File folder) throws IOException {
+        this.dataFile = new File(folder, "violations.dat");
+        this.indexFile = new File(folder, "violations.idx");
+        this.channel = FileChannel.open(dataFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(DATA_VERSION);
+            header.flip();
+            channel.write(header, 0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != DATA_VERSION) {
+                channel.close();
+                throw new IOException(String.format("'%s' isn't a supported violation history.", dataFile.getName()));
+            }
+        }
+
+        long covered = loadIndex();
+        recover(covered);
+    }
+
+    /**
+     * Appends a batch of violations and updates the index.
+     * <p>
+     * The index file is rewritten at most every 30 seconds; records newer than the saved index are recovered on the
+     * next open.
+     *
+     * @param batch the violations to append
+     */
+    @Override
+    public synchronized void accept(List<Violation> batch) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            Map<String, Long> pending = new HashMap<>();
+
+            for (Violation violation : batch) {
+                String key = violation.getPlayer().toLowerCase(Locale.ROOT);
+                Long previous = pending.containsKey(key) ? pending.get(key) : index.get(key);
+                long offset = size + bytes.size();
+                writeRecord(out, violation, previous != null ? previous : -1L);
+                pending.put(key, offset);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            size = position;
+            index.putAll(pending);
+
+            long now = System.currentTimeMillis();
+            if (now - lastIndexSave >= INDEX_SAVE_INTERVAL) {
+                saveIndex();
+                lastIndexSave = now;
+            }
+        } catch (IOException e) {
+            logSevere(String.format("[ChatGuard] Failed to write violation history: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Returns the most recent violations of a player, newest first.
+     * <p>
+     * Only the records of that player are read, by following the chain of offsets from the newest one.
+     *
+     * @param player the player name, case-insensitive
+     * @param limit  the maximum number of violations to return
+     *
+     * @return the violations, newest first; empty if the player has none
+     *
+     * @throws IOException if the history cannot be read
+     */
+    public List<Violation> getRecent(String player, int limit) throws IOException {
+        Long head = index.get(player.toLowerCase(Locale.ROOT));
+        if (head == null) {
+            return Collections.emptyList();
+        }
+
+        List<Violation> violations = new ArrayList<>(Math.min(limit, 64));
+        long offset = head;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        while (offset >= HEADER_SIZE && violations.size() < limit) {
+            length.clear();
+            readFully(length, offset);
+            ByteBuffer record = ByteBuffer.allocate(length.getInt(0));
+            readFully(record, offset + 4);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array()));
+            long previous = in.readLong();
+            violations.add(readViolation(in));
+            offset = previous;
+        }
+        return violations;
+    }
+
+    /**
+     * Returns the number of players with at least one recorded violation.
+     *
+     * @return the number of indexed players
+     */
+    public int getPlayerCount() {
+        return index.size();
+    }
+
+    /**
+     * Saves the index and closes the history.
+     */
+    public synchronized void close() {
+        try {
+            saveIndex();
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            logSevere(String.format("[ChatGuard] Failed to close violation history: %s", e.getMessage()));
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Violation violation, long previous) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeLong(previous);
+        record.writeLong(violation.getTime());
+        record.writeByte(violation.getType().ordinal());
+        record.writeUTF(violation.getPlayer());
+        record.writeUTF(violation.getDetail());
+
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    private static Violation readViolation(DataInputStream in) throws IOException {
+        long time = in.readLong();
+        ViolationType type = ViolationType.values()[in.readUnsignedByte()];
+        String player = in.readUTF();
+        String detail = in.readUTF();
+        return new Violation(player, type, detail, time);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of violation history.");
+            }
+        }
+        buffer.flip();
+    }
+
+    private long loadIndex() {
+        if (!indexFile.exists()) {
+            return HEADER_SIZE;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(indexFile.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != INDEX_VERSION) {
+                return HEADER_SIZE;
+            }
+
+            long covered = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                index.put(in.readUTF(), in.readLong());
+            }
+            return covered;
+        } catch (IOException e) {
+            logWarning(String.format("[ChatGuard] Violation index unreadable, rebuilding it: %s", e.getMessage()));
+            index.clear();
+            return HEADER_SIZE;
+        }
+    }
+
+    private void recover(long covered) throws IOException {
+        long end = channel.size();
+        if (covered > end) {
+            index.clear();
+            covered = HEADER_SIZE;
+        }
+
+        long offset = covered;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        while (offset + 4 <= end) {
+            length.clear();
+            readFully(length, offset);
+            int recordLength = length.getInt(0);
+            if (recordLength <= 0 || recordLength > MAX_RECORD_SIZE || offset + 4 + recordLength > end) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(recordLength);
+            readFully(record, offset + 4);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array()));
+            in.readLong();
+            in.readLong();
+            in.readUnsignedByte();
+            index.put(in.readUTF().toLowerCase(Locale.ROOT), offset);
+            offset += 4 + recordLength;
+        }
+
+        if (offset < end) {
+            logWarning(String.format("[ChatGuard] Discarding %d byte(s) of incomplete violation history.", end - offset));
+            channel.truncate(offset);
+        }
+        size = offset;
+
+        if (offset != covered) {
+            saveIndex();
+        }
+        lastIndexSave = System.currentTimeMillis();
+    }
+
+    private void saveIndex() throws IOException {
+        File temp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(size);
+            Map<String, Long> entries = new HashMap<>(index);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+        channel.force(false);
+        try {
+            Files.move(temp.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.aleksandarharalanov.chatguard.violation;
+
+/**
+ * Kinds of violations ChatGuard reports.
+ * <p>
+ * The ordinal of each type is stored in the violation history, so new types must only ever be appended.
+ */
+public enum ViolationType {
+
+    /**
+     * A message contained a filtered word.
+     */
+    WORD,
+
+    /**
+     * A player sent messages faster than the flood limit allows.
+     */
+    FLOOD,
+
+    /**
+     * A player repeated a recent message, exactly or with small changes.
+     */
+    DUPLICATE
+}
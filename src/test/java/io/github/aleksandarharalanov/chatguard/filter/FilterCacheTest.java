@@ -0,0 +1,63 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FilterCacheTest {
+
+    @Test
+    void loadedEngineScansLikeTheCompiledOne(@TempDir File folder) throws IOException {
+        List<Collection<String>> profiles = asList(asList("fuck", "<ass>", "n[i1]g+a"), asList("*ass*"));
+        List<String> allowlist = asList("assume");
+        FilterEngine compiled = FilterEngine.compile(profiles, allowlist, MatchMode.WORD, StandardNormalizer.INSTANCE);
+        File file = new File(folder, "filter.bin");
+        byte[] key = FilterCache.key(profiles, allowlist, MatchMode.WORD, StandardNormalizer.INSTANCE);
+        FilterCache.save(file, key, compiled);
+
+        FilterEngine loaded = FilterCache.load(file, key, StandardNormalizer.INSTANCE);
+        assertNotNull(loaded);
+        assertEquals(compiled.getStateCount(), loaded.getStateCount());
+        FilterMatches expected = new FilterMatches();
+        FilterMatches actual = new FilterMatches();
+        for (String text : asList("class act", "you n1gga", "FUUCK", "assume the ass")) {
+            for (long mask : new long[]{1L, 2L, FilterEngine.ALL_PROFILES}) {
+                compiled.scan(text, expected, mask);
+                loaded.scan(text, actual, mask);
+                assertEquals(expected.censor(text, '*'), actual.censor(text, '*'), text);
+            }
+        }
+    }
+
+    @Test
+    void otherInputsMissTheCache(@TempDir File folder) throws IOException {
+        List<Collection<String>> profiles = asList(asList("fuck"), asList("*ass*"));
+        List<String> allowlist = asList("assume");
+        File file = new File(folder, "filter.bin");
+        byte[] key = FilterCache.key(profiles, allowlist, MatchMode.WORD, StandardNormalizer.INSTANCE);
+        FilterCache.save(file, key,
+                FilterEngine.compile(profiles, allowlist, MatchMode.WORD, StandardNormalizer.INSTANCE));
+
+        assertArrayEquals(key, FilterCache.key(profiles, allowlist, MatchMode.WORD, StandardNormalizer.INSTANCE));
+        for (byte[] other : asList(
+                FilterCache.key(asList(asList("fuck")), allowlist, MatchMode.WORD, StandardNormalizer.INSTANCE),
+                FilterCache.key(profiles, asList("class"), MatchMode.WORD, StandardNormalizer.INSTANCE),
+                FilterCache.key(profiles, allowlist, MatchMode.SUBSTRING, StandardNormalizer.INSTANCE))) {
+            assertFalse(Arrays.equals(key, other));
+            assertNull(FilterCache.load(file, other, StandardNormalizer.INSTANCE));
+        }
+        assertNull(FilterCache.load(new File(folder, "missing.bin"), key, StandardNormalizer.INSTANCE));
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterEngineTest {
+
+    static final List<String> NONE = Collections.emptyList();
+
+    static Stream<Arguments> scans() {
+        return Stream.of(
+                scan("fuck", "what the fuck", "what the ****"),
+                scan("fuck", "nothing to see", "nothing to see"),
+                // overlapping entries, and entries ending inside longer ones, are all found in one pass
+                scan(asList("he", "she", "his", "hers"), "ushers", "u*****"),
+                scan(asList("shit", "fuck"), "fuck this shit", "**** this ****"),
+                scan(asList("hell", "hello"), "hell no, hello", "**** no, *****")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({1}) on \"{3}\"")
+    @MethodSource("scans")
+    void censors(List<String> filter, MatchMode mode, List<String> allowlist, String text, String censored) {
+        assertCensors(filter, mode, allowlist, text, censored);
+    }
+
+    static void assertCensors(List<String> filter, MatchMode mode, List<String> allowlist, String text,
+                              String censored) {
+        FilterEngine engine = FilterEngine.compile(filter, allowlist, mode, StandardNormalizer.INSTANCE);
+        FilterMatches matches = new FilterMatches();
+
+        assertEquals(!text.equals(censored), engine.scan(text, matches));
+        assertEquals(censored, matches.censor(text, '*'));
+    }
+
+    @Test
+    void reportsEntriesAndSpans() {
+        FilterEngine engine = FilterEngine.compile(asList("fuck", "shit"));
+        FilterMatches matches = new FilterMatches();
+
+        assertTrue(engine.scan("oh sh!t, f.u.c.k", matches));
+        assertEquals(2, matches.size());
+        assertEquals("shit", engine.getEntry(matches.getEntry(0)));
+        assertEquals(3, matches.getStart(0));
+        assertEquals(7, matches.getEnd(0));
+        assertEquals("fuck", engine.getEntry(matches.getEntry(1)));
+        assertEquals(9, matches.getStart(1));
+        assertEquals(16, matches.getEnd(1));
+    }
+
+    static Arguments scan(String entry, String text, String censored) {
+        return scan(asList(entry), text, censored);
+    }
+
+    static Arguments scan(List<String> filter, String text, String censored) {
+        return scan(filter, MatchMode.SUBSTRING, NONE, text, censored);
+    }
+
+    static Arguments scan(List<String> filter, MatchMode mode, List<String> allowlist, String text,
+                          String censored) {
+        return Arguments.of(filter, mode, allowlist, text, censored);
+    }
+}
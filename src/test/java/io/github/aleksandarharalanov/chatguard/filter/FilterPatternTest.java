@@ -0,0 +1,72 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.assertCensors;
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.scan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterPatternTest {
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', value = {
+            "fuck|fuck",
+            "[ck]at|cat kat",
+            "[a-c]x|ax bx cx",
+            "n[i1]g+a|niga n1ga",
+            "wtf\\?|wtf?",
+            "\\*star\\*|*star*",
+            "*ass*|ass",
+    })
+    void expandsIntoVariants(String source, String variants) {
+        assertEquals(Arrays.asList(variants.split(" ")), FilterPattern.parse(source).getVariants());
+    }
+
+    @Test
+    void expandsAnyLetter() {
+        assertEquals(26, FilterPattern.parse("b?d").getVariants().size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"f*ck", "a<b", "[z-a]", "[^a]", "[]", "bad[", "bad]", "+a", "trailing\\", "**", "????",
+            "[a-z][a-z][a-z]"})
+    void rejectsInvalidPatterns(String source) {
+        assertThrows(IllegalArgumentException.class, () -> FilterPattern.parse(source));
+    }
+
+    static Stream<Arguments> scans() {
+        return Stream.of(
+                scan("n[i1]g+a", "you nigggga", "you *******"),
+                scan("b?d", "bad bed bid", "*** *** ***"),
+                scan("wtf\\?", "wtf?", "***?"),
+                scan("*shit*", "bullshit", "bull****")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} on \"{3}\"")
+    @MethodSource("scans")
+    void matchesEveryVariant(List<String> filter, MatchMode mode, List<String> allowlist, String text,
+                             String censored) {
+        assertCensors(filter, mode, allowlist, text, censored);
+    }
+
+    @Test
+    void engineSkipsInvalidEntries() {
+        FilterEngine engine = FilterEngine.compile(Arrays.asList("f*ck", "[z-a]", "damn", "damn"));
+
+        assertEquals(1, engine.size());
+        assertEquals(2, engine.getRejected().length);
+        assertTrue(engine.getRejected()[0].startsWith("f*ck ("));
+    }
+}
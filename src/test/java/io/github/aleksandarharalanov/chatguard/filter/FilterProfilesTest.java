@@ -0,0 +1,97 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.NONE;
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.assertCensors;
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.scan;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterProfilesTest {
+
+    static Stream<Arguments> scans() {
+        return Stream.of(
+                // distinct entries sharing a variant keep their own boundaries, whatever their order
+                scan(asList("<ass>", "*ass*"), "class", "cl***"),
+                scan(asList("*ass*", "<ass>"), "class", "cl***"),
+                scan(asList("<ass>"), "class", "class")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} on \"{3}\"")
+    @MethodSource("scans")
+    void entriesSharingAVariantKeepTheirBoundaries(List<String> filter, MatchMode mode, List<String> allowlist,
+                                                   String text, String censored) {
+        assertCensors(filter, mode, allowlist, text, censored);
+    }
+
+    @Test
+    void profileMasksSelectEntries() {
+        FilterEngine engine = compile(asList(asList("damn"), asList("heck"), asList("damn", "darn")));
+        FilterMatches matches = new FilterMatches();
+
+        assertFalse(engine.scan("heck", matches, 1L));
+        assertTrue(engine.scan("heck", matches, 2L));
+        assertTrue(engine.scan("heck", matches, FilterEngine.ALL_PROFILES));
+        assertFalse(engine.scan("darn", matches, 3L));
+        assertTrue(engine.scan("darn", matches, 4L));
+
+        assertTrue(engine.scan("damn", matches, 4L));
+        assertEquals(5L, engine.getProfiles(matches.getEntry(0)));
+    }
+
+    @Test
+    void entryRepeatedAfterACollidingOneKeepsEveryProfile() {
+        FilterEngine engine = compile(asList(asList("f\u00FCck"), asList("fuck"), asList("fuck")));
+        FilterMatches matches = new FilterMatches();
+
+        assertTrue(engine.scan("fuck", matches, 1L));
+        assertTrue(engine.scan("fuck", matches, 2L));
+        assertTrue(engine.scan("fuck", matches, 4L));
+        assertEquals("fuck", engine.getEntry(matches.getEntry(0)));
+        assertEquals(6L, engine.getProfiles(matches.getEntry(0)));
+    }
+
+    @Test
+    void profileEntryKeepsItsOwnBoundaries() {
+        FilterEngine engine = compile(asList(asList("<ass>"), asList("*ass*")));
+        FilterMatches matches = new FilterMatches();
+
+        assertFalse(engine.scan("class", matches, 1L));
+        assertTrue(engine.scan("class", matches, 2L));
+        assertEquals("*ass*", engine.getEntry(matches.getEntry(0)));
+        assertTrue(engine.scan("my ass", matches, 1L));
+        assertEquals("<ass>", engine.getEntry(matches.getEntry(0)));
+    }
+
+    @Test
+    void snapshotAssignsProfileBitsInOrder() {
+        Map<String, List<String>> profiles = new LinkedHashMap<>();
+        profiles.put("strict", asList("heck"));
+        profiles.put("kids", asList("darn"));
+        FilterSnapshot snapshot = FilterSnapshot.of(1, asList("damn"), profiles, NONE, MatchMode.SUBSTRING);
+        FilterMatches matches = new FilterMatches();
+
+        assertEquals(2L, snapshot.getProfileBit("strict"));
+        assertEquals(4L, snapshot.getProfileBit("kids"));
+        assertEquals(0L, snapshot.getProfileBit("missing"));
+        assertTrue(snapshot.getEngine().scan("darn it", matches, 1L | snapshot.getProfileBit("kids")));
+        assertFalse(snapshot.getEngine().scan("darn it", matches, 1L | snapshot.getProfileBit("strict")));
+    }
+
+    private static FilterEngine compile(List<? extends Collection<String>> profiles) {
+        return FilterEngine.compile(profiles, NONE, MatchMode.SUBSTRING, StandardNormalizer.INSTANCE);
+    }
+}
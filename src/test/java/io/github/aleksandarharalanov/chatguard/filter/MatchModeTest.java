@@ -0,0 +1,57 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.NONE;
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.assertCensors;
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.scan;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MatchModeTest {
+
+    @ParameterizedTest(name = "{0} in {1} mode anchors start {2}, end {3}")
+    @CsvSource(delimiter = '|', value = {
+            "ass|SUBSTRING|false|false",
+            "ass|WORD|true|true",
+            "ass|PREFIX|true|false",
+            "*ass*|WORD|false|false",
+            "<ass>|SUBSTRING|true|true",
+            "<ass*|WORD|true|false",
+            "*ass>|SUBSTRING|false|true",
+    })
+    void anchorsEdges(String source, MatchMode mode, boolean start, boolean end) {
+        FilterPattern pattern = FilterPattern.parse(source);
+        assertEquals(asList("ass"), pattern.getVariants());
+        assertEquals(start, pattern.anchorsStart(mode));
+        assertEquals(end, pattern.anchorsEnd(mode));
+    }
+
+    static Stream<Arguments> scans() {
+        return Stream.of(
+                // word boundaries, from the default mode or the pattern
+                scan("<fuck*", "fucking motherfucker", "****ing motherfucker"),
+                scan(asList("ass"), MatchMode.WORD, NONE, "stupid,ass", "stupid,***"),
+                scan(asList("ass"), MatchMode.WORD, NONE, "my ass in class", "my *** in class"),
+                scan(asList("fuck"), MatchMode.WORD, NONE, "fuckkk you", "****** you"),
+                scan(asList("ass"), MatchMode.PREFIX, NONE, "assess the class", "***ess the class"),
+                // allowlist
+                scan(asList("ass"), MatchMode.SUBSTRING, asList("class", "assume"), "assume my ass in class",
+                        "assume my *** in class"),
+                scan(asList("cc"), MatchMode.SUBSTRING, asList("accept"), "accept acc", "accept a**")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({1}) on \"{3}\"")
+    @MethodSource("scans")
+    void respectsBoundariesAndAllowlist(List<String> filter, MatchMode mode, List<String> allowlist, String text,
+                                        String censored) {
+        assertCensors(filter, mode, allowlist, text, censored);
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.aleksandarharalanov.chatguard.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.assertCensors;
+import static io.github.aleksandarharalanov.chatguard.filter.FilterEngineTest.scan;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StandardNormalizerTest {
+
+    @ParameterizedTest(name = "\"{0}\" -> \"{1}\"")
+    @CsvSource(delimiter = '|', ignoreLeadingAndTrailingWhitespace = false, value = {
+            // case and accents
+            "Hello World|hello world",
+            "\u00C9COLE \u00FCber|ecole uber",
+            // leetspeak, only when a letter is involved
+            "h3ll0|hello",
+            "$h!t|shit",
+            "a55|ass",
+            "f.4.c.k|fack",
+            "selling 455 diamonds|selling 455 diamonds",
+            "room 101|room 101",
+            // separators
+            "f.u.c.k|fuck",
+            "f-u_c*k|fuck",
+            "f*ck|fck",
+            "stupid,ass|stupid ass",
+            "what...ever|what ever",
+            "don't|dont",
+            "you're|you re",
+            "wtf?|wtf",
+            // whitespace, color codes and invisible characters
+            "  spaced   out  |spaced out",
+            "\u00A7cred \u00A7lbold|red bold",
+            "f\u200Buck|fuck",
+            "!|''",
+    })
+    void normalizes(String text, String expected) {
+        assertEquals(expected, normalize(text));
+    }
+
+    @Test
+    void mapsEveryCharacterBackToTheOriginalText() {
+        NormalizedText out = new NormalizedText();
+        StandardNormalizer.INSTANCE.normalize("\u00A7cF.u ck", out);
+
+        assertEquals("fu ck", out.toString());
+        int[] offsets = new int[out.length()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = out.getOffset(i);
+        }
+        assertArrayEquals(new int[]{2, 4, 5, 6, 7}, offsets);
+    }
+
+    static Stream<Arguments> scans() {
+        return Stream.of(
+                // stretched and disguised words
+                scan("fuck", "FUUUCKKK!! you", "********!! you"),
+                scan("fuck", "f.u.c.k off", "******* off"),
+                scan("fuck", "\u00A7cfu\u00A77ck", "\u00A7c**\u00A77**"),
+                scan("ass", "you a55", "you ***"),
+                scan("ass", "selling 455 diamonds", "selling 455 diamonds"),
+                // a repeat may start another entry, so it is only absorbed when nothing can take it
+                scan(asList("abcd", "cc"), "abcc", "ab**"),
+                scan(asList("cocksucker", "kkk"), "cockkk", "coc***"),
+                scan(asList("fuck", "uh"), "fuuuck", "******")
+        );
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} on \"{3}\"")
+    @MethodSource("scans")
+    void matchesNormalizedText(List<String> filter, MatchMode mode, List<String> allowlist, String text,
+                               String censored) {
+        assertCensors(filter, mode, allowlist, text, censored);
+    }
+
+    private static String normalize(String text) {
+        NormalizedText out = new NormalizedText();
+        StandardNormalizer.INSTANCE.normalize(text, out);
+        return out.toString();
+    }
+}
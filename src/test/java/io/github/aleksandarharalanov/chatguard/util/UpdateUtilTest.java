@@ -0,0 +1,165 @@
+package io.github.aleksandarharalanov.chatguard.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the update check against a local HTTP server standing in for the GitHub API.
+ */
+class UpdateUtilTest {
+
+    private static final String ETAG = "\"release-2\"";
+    private static final String BODY = "{\"tag_name\":\"v2.0.0\",\"name\":\"ChatGuard v2.0.0\"}";
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private static HttpServer server;
+    private static ExecutorService executor;
+    private static String baseUrl;
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicReference<String> ifNoneMatch = new AtomicReference<>();
+
+    @TempDir
+    File folder;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        if (Bukkit.getServer() == null) {
+            Logger logger = Logger.getLogger("ChatGuardTest");
+            Bukkit.setServer((Server) Proxy.newProxyInstance(Server.class.getClassLoader(),
+                    new Class<?>[]{Server.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getLogger":
+                                return logger;
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "equals":
+                                return proxy == args[0];
+                            case "toString":
+                                return "TestServer";
+                            default:
+                                return null;
+                        }
+                    }));
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/latest", UpdateUtilTest::latest);
+        server.createContext("/slow", UpdateUtilTest::slow);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @BeforeEach
+    void resetRequests() {
+        requests.set(0);
+        ifNoneMatch.set(null);
+    }
+
+    @Test
+    void okResponseIsReturnedAndCachedWithItsEtag() throws IOException {
+        File cache = new File(folder, "update.properties");
+
+        assertEquals("v2.0.0", check("/latest", cache, 0, 1000));
+        assertEquals(1, requests.get());
+        assertNull(ifNoneMatch.get());
+
+        String cached = new String(Files.readAllBytes(cache.toPath()), StandardCharsets.ISO_8859_1);
+        assertTrue(cached.contains("latest=v2.0.0"), cached);
+        assertTrue(cached.contains("etag=" + ETAG), cached);
+    }
+
+    @Test
+    void staleCacheIsRevalidatedWithTheEtag() {
+        File cache = new File(folder, "update.properties");
+        assertEquals("v2.0.0", check("/latest", cache, 0, 1000));
+
+        assertEquals("v2.0.0", check("/latest", cache, 0, 1000));
+        assertEquals(2, requests.get());
+        assertEquals(ETAG, ifNoneMatch.get());
+    }
+
+    @Test
+    void freshCacheSkipsTheRequest() {
+        File cache = new File(folder, "update.properties");
+        assertEquals("v2.0.0", check("/latest", cache, HOUR, 1000));
+
+        assertEquals("v2.0.0", check("/latest", cache, HOUR, 1000));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void slowServerTimesOut() {
+        long start = System.nanoTime();
+
+        assertNull(check("/slow", new File(folder, "update.properties"), 0, 200));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "the read timeout wasn't applied");
+    }
+
+    private static String check(String path, File cache, long cacheTtl, int readTimeout) {
+        return UpdateUtil.checkForUpdates("ChatGuard", "1.0.0", baseUrl + path, cache, cacheTtl, 1000, readTimeout);
+    }
+
+    private static void latest(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatch.set(etag);
+
+        if (ETAG.equals(etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void slow(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.close();
+    }
+}